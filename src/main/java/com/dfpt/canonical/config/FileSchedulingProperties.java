@@ -0,0 +1,96 @@
+package com.dfpt.canonical.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ordering of queued input files, declared under {@code file.processing.scheduling}.
+ * Files run by pattern priority first, then smallest first; waiting files age
+ * towards the front in both orders so neither large nor low-priority files are
+ * starved.
+ */
+@Component
+@ConfigurationProperties(prefix = "file.processing.scheduling")
+public class FileSchedulingProperties {
+
+    private DataSize largeFileThreshold = DataSize.ofMegabytes(512);
+    private int maxLargeFileWorkers = 1;
+    private DataSize agingPerSecond = DataSize.ofMegabytes(10);
+    private Duration priorityAging = Duration.ofMinutes(5);
+    private List<PatternPriority> priorities = new ArrayList<>();
+
+    public DataSize getLargeFileThreshold() {
+        return largeFileThreshold;
+    }
+
+    public void setLargeFileThreshold(DataSize largeFileThreshold) {
+        this.largeFileThreshold = largeFileThreshold;
+    }
+
+    public int getMaxLargeFileWorkers() {
+        return maxLargeFileWorkers;
+    }
+
+    public void setMaxLargeFileWorkers(int maxLargeFileWorkers) {
+        this.maxLargeFileWorkers = maxLargeFileWorkers;
+    }
+
+    public DataSize getAgingPerSecond() {
+        return agingPerSecond;
+    }
+
+    public void setAgingPerSecond(DataSize agingPerSecond) {
+        this.agingPerSecond = agingPerSecond;
+    }
+
+    public Duration getPriorityAging() {
+        return priorityAging;
+    }
+
+    public void setPriorityAging(Duration priorityAging) {
+        this.priorityAging = priorityAging;
+    }
+
+    public List<PatternPriority> getPriorities() {
+        return priorities;
+    }
+
+    public void setPriorities(List<PatternPriority> priorities) {
+        this.priorities = priorities;
+    }
+
+    public static class PatternPriority {
+
+        private String pattern;
+        private int priority;
+
+        public PatternPriority() {
+        }
+
+        public PatternPriority(String pattern, int priority) {
+            this.pattern = pattern;
+            this.priority = priority;
+        }
+
+        public String getPattern() {
+            return pattern;
+        }
+
+        public void setPattern(String pattern) {
+            this.pattern = pattern;
+        }
+
+        public int getPriority() {
+            return priority;
+        }
+
+        public void setPriority(int priority) {
+            this.priority = priority;
+        }
+    }
+}
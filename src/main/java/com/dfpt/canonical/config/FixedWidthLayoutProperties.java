@@ -0,0 +1,169 @@
+package com.dfpt.canonical.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixed-width record layouts declared under {@code fixed-width.layouts}.
+ * Layouts are tried in order; the built-in default layout is used when none match.
+ */
+@Component
+@ConfigurationProperties(prefix = "fixed-width")
+public class FixedWidthLayoutProperties {
+
+    private List<Layout> layouts = new ArrayList<>();
+
+    public List<Layout> getLayouts() {
+        return layouts;
+    }
+
+    public void setLayouts(List<Layout> layouts) {
+        this.layouts = layouts;
+    }
+
+    public enum FieldType {
+        STRING,
+        INTEGER,
+        DECIMAL
+    }
+
+    public static class Layout {
+
+        private String name;
+        private String filePattern;
+        private String headerPrefix;
+        private boolean skipHeader;
+        private Integer minLength;
+        private String trailingDelimiter = "|";
+        private List<Field> fields = new ArrayList<>();
+
+        public Layout() {
+        }
+
+        public Layout(String name, String filePattern, int minLength, List<Field> fields) {
+            this.name = name;
+            this.filePattern = filePattern;
+            this.minLength = minLength;
+            this.fields = fields;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getFilePattern() {
+            return filePattern;
+        }
+
+        public void setFilePattern(String filePattern) {
+            this.filePattern = filePattern;
+        }
+
+        public String getHeaderPrefix() {
+            return headerPrefix;
+        }
+
+        public void setHeaderPrefix(String headerPrefix) {
+            this.headerPrefix = headerPrefix;
+        }
+
+        public boolean isSkipHeader() {
+            return skipHeader;
+        }
+
+        public void setSkipHeader(boolean skipHeader) {
+            this.skipHeader = skipHeader;
+        }
+
+        public Integer getMinLength() {
+            return minLength;
+        }
+
+        public void setMinLength(Integer minLength) {
+            this.minLength = minLength;
+        }
+
+        public String getTrailingDelimiter() {
+            return trailingDelimiter;
+        }
+
+        public void setTrailingDelimiter(String trailingDelimiter) {
+            this.trailingDelimiter = trailingDelimiter;
+        }
+
+        public List<Field> getFields() {
+            return fields;
+        }
+
+        public void setFields(List<Field> fields) {
+            this.fields = fields;
+        }
+    }
+
+    public static class Field {
+
+        private String name;
+        private int start;
+        private int end;
+        private FieldType type = FieldType.STRING;
+        private int decimals;
+
+        public Field() {
+        }
+
+        public Field(String name, int start, int end, FieldType type, int decimals) {
+            this.name = name;
+            this.start = start;
+            this.end = end;
+            this.type = type;
+            this.decimals = decimals;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public int getStart() {
+            return start;
+        }
+
+        public void setStart(int start) {
+            this.start = start;
+        }
+
+        public int getEnd() {
+            return end;
+        }
+
+        public void setEnd(int end) {
+            this.end = end;
+        }
+
+        public FieldType getType() {
+            return type;
+        }
+
+        public void setType(FieldType type) {
+            this.type = type;
+        }
+
+        public int getDecimals() {
+            return decimals;
+        }
+
+        public void setDecimals(int decimals) {
+            this.decimals = decimals;
+        }
+    }
+}
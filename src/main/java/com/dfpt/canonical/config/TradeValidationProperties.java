@@ -0,0 +1,74 @@
+package com.dfpt.canonical.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Validation rules declared under {@code trade.validation.rules}, keyed by
+ * transaction type. Types are matched case-insensitively; a trade whose type has
+ * no rules is invalid. The built-in buy/sell rules apply when none are configured.
+ */
+@Component
+@ConfigurationProperties(prefix = "trade.validation")
+public class TradeValidationProperties {
+
+    private Map<String, List<Rule>> rules = new LinkedHashMap<>();
+
+    public Map<String, List<Rule>> getRules() {
+        return rules;
+    }
+
+    public void setRules(Map<String, List<Rule>> rules) {
+        this.rules = rules;
+    }
+
+    public enum Check {
+        REQUIRED,
+        POSITIVE,
+        NOT_BLANK,
+        MAX_LENGTH
+    }
+
+    public static class Rule {
+
+        private String field;
+        private Check check = Check.REQUIRED;
+        private Integer length;
+
+        public Rule() {
+        }
+
+        public Rule(String field, Check check) {
+            this.field = field;
+            this.check = check;
+        }
+
+        public String getField() {
+            return field;
+        }
+
+        public void setField(String field) {
+            this.field = field;
+        }
+
+        public Check getCheck() {
+            return check;
+        }
+
+        public void setCheck(Check check) {
+            this.check = check;
+        }
+
+        public Integer getLength() {
+            return length;
+        }
+
+        public void setLength(Integer length) {
+            this.length = length;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.dfpt.canonical.controller;
+
+import com.dfpt.canonical.dto.CacheStats;
+import com.dfpt.canonical.dto.TradePage;
+import com.dfpt.canonical.dto.TradeView;
+import com.dfpt.canonical.service.TradeExportService;
+import com.dfpt.canonical.service.TradeQueryService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Trade lookups. List endpoints are keyset-paginated: pass the returned
+ * {@code nextCursor} as {@code cursor} to get the next page. Whole ranges are
+ * streamed by the export endpoint instead.
+ */
+@RestController
+@RequestMapping("/api/trades")
+public class TradeQueryController {
+
+    @Autowired
+    private TradeQueryService tradeQueryService;
+
+    @Autowired
+    private TradeExportService tradeExportService;
+
+    @GetMapping("/transaction/{transactionId}")
+    public List<TradeView> byTransactionId(@PathVariable String transactionId) {
+        return tradeQueryService.findByTransactionId(transactionId);
+    }
+
+    @GetMapping("/cache/stats")
+    public CacheStats cacheStats() {
+        return tradeQueryService.getCacheStats();
+    }
+
+    @GetMapping
+    public TradePage byTradeDateTime(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return tradeQueryService.findByTradeDateTime(from, to, cursor, limit);
+    }
+
+    @GetMapping("/account/{clientAccountNo}")
+    public TradePage byClientAccount(@PathVariable Integer clientAccountNo,
+                                     @RequestParam(required = false) String cursor,
+                                     @RequestParam(required = false) Integer limit) {
+        return tradeQueryService.findByClientAccount(clientAccountNo, cursor, limit);
+    }
+
+    /**
+     * Streams every trade with trade time in [from, to) as NDJSON or CSV,
+     * gzip-encoded when requested.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        TradeExportService.Format exportFormat = TradeExportService.Format.valueOf(format.toUpperCase(Locale.ROOT));
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                try (GZIPOutputStream compressed = new GZIPOutputStream(out, 64 * 1024, true)) {
+                    tradeExportService.export(from, to, exportFormat, compressed);
+                }
+            } else {
+                tradeExportService.export(from, to, exportFormat, out);
+            }
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(exportFormat == TradeExportService.Format.CSV
+                        ? new MediaType("text", "csv") : new MediaType("application", "x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"trades."
+                        + exportFormat.name().toLowerCase(Locale.ROOT) + "\"");
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public Map<String, String> badRequest(IllegalArgumentException e) {
+        return Map.of("error", e.getMessage());
+    }
+}
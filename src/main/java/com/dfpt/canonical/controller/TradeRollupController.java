@@ -0,0 +1,52 @@
+package com.dfpt.canonical.controller;
+
+import com.dfpt.canonical.dto.TradeRollup;
+import com.dfpt.canonical.service.TradeRollupService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Trade totals per trade date, firm, fund and transaction type, read from the
+ * rollups maintained during ingest rather than aggregated over the trades.
+ * POST /api/rollups/rebuild recomputes them from the stored trades.
+ */
+@RestController
+@RequestMapping("/api/rollups")
+public class TradeRollupController {
+
+    @Autowired
+    private TradeRollupService tradeRollupService;
+
+    @GetMapping
+    public List<TradeRollup> rollups(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Integer firmNumber,
+            @RequestParam(required = false) Integer fundNumber,
+            @RequestParam(required = false) String transactionType) {
+        return tradeRollupService.query(from, to, firmNumber, fundNumber, transactionType);
+    }
+
+    @PostMapping("/rebuild")
+    public Map<String, Integer> rebuild() {
+        return Map.of("groups", tradeRollupService.rebuild());
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public Map<String, String> badRequest(IllegalArgumentException e) {
+        return Map.of("error", e.getMessage());
+    }
+}
@@ -4,8 +4,15 @@ import com.dfpt.canonical.model.CanonicalTrade;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
+/**
+ * Outcome of processing one file. In summary mode saved trades are not retained
+ * and only the first errors are kept as a sample; {@code errorCount} always holds
+ * the full number, and {@code rejectFile} points at the per-record report.
+ */
 public class ProcessingResult {
     
     private String fileName;
@@ -14,13 +21,22 @@ public class ProcessingResult {
     private int totalRecords;
     private int successCount;
     private int failedCount;
+    private int duplicateCount;
     private List<CanonicalTrade> processedTrades;
     private List<String> errors;
+    private int errorCount;
+    private int errorLimit = -1;
+    private boolean retainTrades = true;
+    private String rejectFile;
+    private Map<String, Integer> violationCounts;
     private String status; 
+    private long queueWaitMillis;
+    private long processingMillis;
     
     public ProcessingResult() {
         this.processedTrades = new ArrayList<>();
         this.errors = new ArrayList<>();
+        this.violationCounts = new LinkedHashMap<>();
         this.processedAt = LocalDateTime.now();
     }
 
@@ -74,6 +90,14 @@ public class ProcessingResult {
         this.failedCount = failedCount;
     }
 
+    public int getDuplicateCount() {
+        return duplicateCount;
+    }
+
+    public void setDuplicateCount(int duplicateCount) {
+        this.duplicateCount = duplicateCount;
+    }
+
     public List<CanonicalTrade> getProcessedTrades() {
         return processedTrades;
     }
@@ -90,6 +114,49 @@ public class ProcessingResult {
         this.errors = errors;
     }
 
+    public int getErrorCount() {
+        return errorCount;
+    }
+
+    public void setErrorCount(int errorCount) {
+        this.errorCount = errorCount;
+    }
+
+    public int getErrorLimit() {
+        return errorLimit;
+    }
+
+    /**
+     * Caps the number of error messages kept; negative keeps all of them.
+     */
+    public void setErrorLimit(int errorLimit) {
+        this.errorLimit = errorLimit;
+    }
+
+    public boolean isRetainTrades() {
+        return retainTrades;
+    }
+
+    public void setRetainTrades(boolean retainTrades) {
+        this.retainTrades = retainTrades;
+    }
+
+    public String getRejectFile() {
+        return rejectFile;
+    }
+
+    public void setRejectFile(String rejectFile) {
+        this.rejectFile = rejectFile;
+    }
+
+    public Map<String, Integer> getViolationCounts() {
+        return violationCounts;
+    }
+
+    public void setViolationCounts(Map<String, Integer> violationCounts) {
+        this.violationCounts = violationCounts;
+    }
+
     public String getStatus() {
         return status;
     }
@@ -97,15 +164,40 @@ public class ProcessingResult {
     public void setStatus(String status) {
         this.status = status;
     }
+
+    public long getQueueWaitMillis() {
+        return queueWaitMillis;
+    }
+
+    public void setQueueWaitMillis(long queueWaitMillis) {
+        this.queueWaitMillis = queueWaitMillis;
+    }
+
+    public long getProcessingMillis() {
+        return processingMillis;
+    }
+
+    public void setProcessingMillis(long processingMillis) {
+        this.processingMillis = processingMillis;
+    }
     
     
     
     public void addError(String error) {
-        this.errors.add(error);
+        this.errorCount++;
+        if (errorLimit < 0 || errors.size() < errorLimit) {
+            this.errors.add(error);
+        }
+    }
+    
+    public void addViolation(String code) {
+        this.violationCounts.merge(code, 1, Integer::sum);
     }
     
     public void addProcessedTrade(CanonicalTrade trade) {
-        this.processedTrades.add(trade);
+        if (retainTrades) {
+            this.processedTrades.add(trade);
+        }
     }
 
     @Override
@@ -117,8 +209,13 @@ public class ProcessingResult {
                 ", totalRecords=" + totalRecords +
                 ", successCount=" + successCount +
                 ", failedCount=" + failedCount +
+                ", duplicateCount=" + duplicateCount +
+                ", violationCounts=" + violationCounts +
                 ", status='" + status + '\'' +
-                ", errorsCount=" + errors.size() +
+                ", queueWaitMillis=" + queueWaitMillis +
+                ", processingMillis=" + processingMillis +
+                ", errorCount=" + errorCount +
+                ", rejectFile='" + rejectFile + '\'' +
                 '}';
     }
 }
@@ -0,0 +1,37 @@
+package com.dfpt.canonical.dto;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated trade query. {@code nextCursor} is passed back
+ * to fetch the following page and is null on the last page.
+ */
+public class TradePage {
+
+    private List<TradeView> trades;
+    private String nextCursor;
+
+    public TradePage() {
+    }
+
+    public TradePage(List<TradeView> trades, String nextCursor) {
+        this.trades = trades;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<TradeView> getTrades() {
+        return trades;
+    }
+
+    public void setTrades(List<TradeView> trades) {
+        this.trades = trades;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
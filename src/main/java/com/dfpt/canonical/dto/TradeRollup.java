@@ -0,0 +1,95 @@
+package com.dfpt.canonical.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Comparator;
+
+/**
+ * Totals of the stored trades of one trade date, firm, fund and transaction type.
+ */
+public class TradeRollup {
+
+    public static final Comparator<TradeRollup> ORDER = Comparator
+            .comparing(TradeRollup::getTradeDate, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(TradeRollup::getFirmNumber, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(TradeRollup::getFundNumber, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(TradeRollup::getTransactionType, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private LocalDate tradeDate;
+    private Integer firmNumber;
+    private Integer fundNumber;
+    private String transactionType;
+    private long tradeCount;
+    private BigDecimal dollarAmount;
+    private BigDecimal shareQuantity;
+
+    public TradeRollup() {
+    }
+
+    public TradeRollup(LocalDate tradeDate, Integer firmNumber, Integer fundNumber, String transactionType,
+                       long tradeCount, BigDecimal dollarAmount, BigDecimal shareQuantity) {
+        this.tradeDate = tradeDate;
+        this.firmNumber = firmNumber;
+        this.fundNumber = fundNumber;
+        this.transactionType = transactionType;
+        this.tradeCount = tradeCount;
+        this.dollarAmount = dollarAmount;
+        this.shareQuantity = shareQuantity;
+    }
+
+    public LocalDate getTradeDate() {
+        return tradeDate;
+    }
+
+    public void setTradeDate(LocalDate tradeDate) {
+        this.tradeDate = tradeDate;
+    }
+
+    public Integer getFirmNumber() {
+        return firmNumber;
+    }
+
+    public void setFirmNumber(Integer firmNumber) {
+        this.firmNumber = firmNumber;
+    }
+
+    public Integer getFundNumber() {
+        return fundNumber;
+    }
+
+    public void setFundNumber(Integer fundNumber) {
+        this.fundNumber = fundNumber;
+    }
+
+    public String getTransactionType() {
+        return transactionType;
+    }
+
+    public void setTransactionType(String transactionType) {
+        this.transactionType = transactionType;
+    }
+
+    public long getTradeCount() {
+        return tradeCount;
+    }
+
+    public void setTradeCount(long tradeCount) {
+        this.tradeCount = tradeCount;
+    }
+
+    public BigDecimal getDollarAmount() {
+        return dollarAmount;
+    }
+
+    public void setDollarAmount(BigDecimal dollarAmount) {
+        this.dollarAmount = dollarAmount;
+    }
+
+    public BigDecimal getShareQuantity() {
+        return shareQuantity;
+    }
+
+    public void setShareQuantity(BigDecimal shareQuantity) {
+        this.shareQuantity = shareQuantity;
+    }
+}
@@ -0,0 +1,37 @@
+package com.dfpt.canonical.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Read-side projection of a canonical trade. Repository queries select these
+ * columns only, so no entities are hydrated or tracked. Client PII (name, SSN,
+ * date of birth) is not part of the view.
+ */
+public interface TradeView {
+
+    UUID getId();
+
+    String getTransactionId();
+
+    String getTransactionType();
+
+    LocalDateTime getTradeDateTime();
+
+    Integer getOriginatorType();
+
+    Integer getFirmNumber();
+
+    Integer getFundNumber();
+
+    BigDecimal getDollarAmount();
+
+    BigDecimal getShareQuantity();
+
+    Integer getClientAccountNo();
+
+    String getStatus();
+
+    LocalDateTime getCreatedAt();
+}
@@ -9,14 +9,14 @@ import java.util.UUID;
 
 @Entity
 @Table(name = "canonical_trades", indexes = {
-    @Index(name = "idx_transaction_id", columnList = "transaction_id"),
+    @Index(name = "idx_transaction_id", columnList = "transaction_id, trade_datetime", unique = true),
     @Index(name = "idx_trade_datetime", columnList = "trade_datetime"),
     @Index(name = "idx_client_account", columnList = "client_account_no")
 })
 public class CanonicalTrade {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedUuidV7
     private UUID id;
 
     @Column(name = "status")
@@ -0,0 +1,38 @@
+package com.dfpt.canonical.model;
+
+import java.util.UUID;
+
+/**
+ * An event waiting in {@code outbox_events} to be published downstream. The
+ * payload is the JSON document written with the event.
+ */
+public class OutboxEvent {
+
+    private final long id;
+    private final UUID aggregateId;
+    private final String eventType;
+    private final String payload;
+
+    public OutboxEvent(long id, UUID aggregateId, String eventType, String payload) {
+        this.id = id;
+        this.aggregateId = aggregateId;
+        this.eventType = eventType;
+        this.payload = payload;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public UUID getAggregateId() {
+        return aggregateId;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+}
@@ -0,0 +1,49 @@
+package com.dfpt.canonical.model;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time-ordered version 7 UUIDs (RFC 9562): a 48-bit Unix millisecond timestamp,
+ * a 12-bit counter in rand_a and 62 random bits. Timestamp and counter share one
+ * atomic word, so IDs from one JVM are strictly increasing across threads without
+ * locking; a counter overflow or a clock step back carries into the timestamp.
+ * Keys generated this way append to the right edge of the primary key index.
+ */
+public final class UuidV7 {
+
+    private static final int COUNTER_BITS = 12;
+
+    /** Millisecond timestamp shifted left by the counter width, plus the counter. */
+    private static final AtomicLong STATE = new AtomicLong();
+
+    private UuidV7() {
+    }
+
+    public static UUID next() {
+        long now = System.currentTimeMillis() << COUNTER_BITS;
+        long previous;
+        long current;
+        do {
+            previous = STATE.get();
+            current = now > previous ? now : previous + 1;
+        } while (!STATE.compareAndSet(previous, current));
+
+        long timestamp = current >>> COUNTER_BITS;
+        long counter = current & ((1L << COUNTER_BITS) - 1);
+        long msb = (timestamp << 16) | 0x7000L | counter;
+        long lsb = (ThreadLocalRandom.current().nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(msb, lsb);
+    }
+
+    /**
+     * Returns the Unix millisecond timestamp embedded in a version 7 UUID.
+     */
+    public static long timestamp(UUID uuid) {
+        if (uuid.version() != 7) {
+            throw new IllegalArgumentException("Not a version 7 UUID: " + uuid);
+        }
+        return uuid.getMostSignificantBits() >>> 16;
+    }
+}
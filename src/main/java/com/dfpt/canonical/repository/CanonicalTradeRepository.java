@@ -1,11 +1,51 @@
 package com.dfpt.canonical.repository;
 
+import com.dfpt.canonical.dto.TradeView;
 import com.dfpt.canonical.model.CanonicalTrade;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 
 @Repository
 public interface CanonicalTradeRepository extends JpaRepository<CanonicalTrade, UUID> {
+
+    String VIEW_COLUMNS = "t.id AS id, t.transactionId AS transactionId, t.transactionType AS transactionType, "
+            + "t.tradeDateTime AS tradeDateTime, t.originatorType AS originatorType, t.firmNumber AS firmNumber, "
+            + "t.fundNumber AS fundNumber, t.dollarAmount AS dollarAmount, t.shareQuantity AS shareQuantity, "
+            + "t.clientAccountNo AS clientAccountNo, t.status AS status, t.createdAt AS createdAt";
+
+    /**
+     * All trades carrying a transaction ID (one per trade time at most).
+     */
+    @Transactional(readOnly = true)
+    @Query("SELECT " + VIEW_COLUMNS + " FROM CanonicalTrade t WHERE t.transactionId = :transactionId "
+            + "ORDER BY t.tradeDateTime, t.id")
+    List<TradeView> findViewsByTransactionId(@Param("transactionId") String transactionId);
+
+    /**
+     * Trades in [from, to) after the (tradeDateTime, id) seek key, in key order.
+     * The range prunes partitions and the afterTime bound seeks on idx_trade_datetime.
+     */
+    @Query("SELECT " + VIEW_COLUMNS + " FROM CanonicalTrade t "
+            + "WHERE t.tradeDateTime >= :from AND t.tradeDateTime < :to AND t.tradeDateTime >= :afterTime "
+            + "AND (t.tradeDateTime > :afterTime OR t.id > :afterId) "
+            + "ORDER BY t.tradeDateTime, t.id")
+    List<TradeView> findViewsByTradeDateTime(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                                             @Param("afterTime") LocalDateTime afterTime,
+                                             @Param("afterId") UUID afterId, Limit limit);
+
+    /**
+     * Trades of a client account after the id seek key, in id (creation) order.
+     */
+    @Query("SELECT " + VIEW_COLUMNS + " FROM CanonicalTrade t "
+            + "WHERE t.clientAccountNo = :clientAccountNo AND t.id > :afterId ORDER BY t.id")
+    List<TradeView> findViewsByClientAccountNo(@Param("clientAccountNo") Integer clientAccountNo,
+                                               @Param("afterId") UUID afterId, Limit limit);
 }
@@ -0,0 +1,74 @@
+package com.dfpt.canonical.service;
+
+import com.dfpt.canonical.model.CanonicalTrade;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Binds raw field values straight onto a {@link CanonicalTrade}, applying the
+ * {@link MapperService} conversions (originator type, ddMMyyyy dates) inline.
+ * Readers use it to skip the ExternalTradeDTO intermediate. Field names are
+ * matched case-insensitively, so JSON, CSV and XML names resolve alike.
+ */
+@Component
+public class CanonicalTradeBinder {
+
+    @Autowired
+    private MapperService mapperService;
+
+    private final Map<String, BiConsumer<CanonicalTrade, String>> textBinders = new HashMap<>();
+
+    @PostConstruct
+    public void init() {
+        register("originatorType", (trade, value) -> trade.setOriginatorType(mapperService.convertOriginatorType(value)));
+        register("firmNumber", (trade, value) -> trade.setFirmNumber(parseInteger(value)));
+        register("fundNumber", (trade, value) -> trade.setFundNumber(parseInteger(value)));
+        register("transactionType", CanonicalTrade::setTransactionType);
+        register("transactionId", CanonicalTrade::setTransactionId);
+        register("tradeDateTime", (trade, value) -> trade.setTradeDateTime(mapperService.parseDateTime(value)));
+        register("dollarAmount", (trade, value) -> trade.setDollarAmount(parseDecimal(value)));
+        // Assigned from the record ordinal during ingest
+        register("clientAccountNo", (trade, value) -> { });
+        register("clientName", CanonicalTrade::setClientName);
+        register("ssn", CanonicalTrade::setSsn);
+        register("dob", (trade, value) -> trade.setDob(mapperService.parseDate(value)));
+        register("shareQuantity", (trade, value) -> trade.setShareQuantity(parseDecimal(value)));
+    }
+
+    /**
+     * Returns the binder for a source field, or null if the field is not a trade property.
+     */
+    public BiConsumer<CanonicalTrade, String> textBinder(String fieldName) {
+        // Exact names hit without allocating a lower-cased copy
+        BiConsumer<CanonicalTrade, String> binder = textBinders.get(fieldName);
+        return binder != null ? binder : textBinders.get(fieldName.trim().toLowerCase(Locale.ROOT));
+    }
+
+    private void register(String fieldName, BiConsumer<CanonicalTrade, String> binder) {
+        textBinders.put(fieldName, binder);
+        textBinders.put(fieldName.toLowerCase(Locale.ROOT), binder);
+    }
+
+    static Integer parseInteger(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : Integer.valueOf(trimmed);
+    }
+
+    static BigDecimal parseDecimal(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : new BigDecimal(trimmed);
+    }
+}
@@ -0,0 +1,177 @@
+package com.dfpt.canonical.service;
+
+import com.dfpt.canonical.dto.ExternalTradeDTO;
+import com.dfpt.canonical.model.CanonicalTrade;
+import com.opencsv.CSVParserBuilder;
+import com.opencsv.CSVReader;
+import com.opencsv.CSVReaderBuilder;
+import com.opencsv.exceptions.CsvValidationException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Streams trades out of a CSV file with a header row.
+ * The header is resolved to column binders once per file; each row is then
+ * bound by index straight into an {@link ExternalTradeDTO} without reflection,
+ * or directly into a {@link CanonicalTrade} for the fused ingest path.
+ * Header names are matched case-insensitively, unknown columns are ignored.
+ */
+@Service
+public class CsvTradeReader {
+
+    private static final Map<String, BiConsumer<ExternalTradeDTO, String>> BINDERS = new HashMap<>();
+
+    static {
+        register("originatorType", ExternalTradeDTO::setOriginatorType);
+        register("firmNumber", (trade, value) -> trade.setFirmNumber(CanonicalTradeBinder.parseInteger(value)));
+        register("fundNumber", (trade, value) -> trade.setFundNumber(CanonicalTradeBinder.parseInteger(value)));
+        register("transactionType", ExternalTradeDTO::setTransactionType);
+        register("transactionId", ExternalTradeDTO::setTransactionId);
+        register("tradeDateTime", ExternalTradeDTO::setTradeDateTime);
+        register("dollarAmount", (trade, value) -> trade.setDollarAmount(CanonicalTradeBinder.parseDecimal(value)));
+        register("clientName", ExternalTradeDTO::setClientName);
+        register("ssn", ExternalTradeDTO::setSsn);
+        register("dob", ExternalTradeDTO::setDob);
+        register("shareQuantity", (trade, value) -> trade.setShareQuantity(CanonicalTradeBinder.parseDecimal(value)));
+    }
+
+    @Autowired
+    private CanonicalTradeBinder canonicalTradeBinder;
+
+    public int read(File file, Consumer<ExternalTradeDTO> sink) throws IOException {
+        return read(file, dtoBinding(), sink);
+    }
+
+    public int readCanonical(File file, Consumer<CanonicalTrade> sink) throws IOException {
+        return read(file, canonicalBinding(), sink);
+    }
+
+    String[] readHeader(File file) throws IOException {
+        try (CSVReader reader = open(new FileReader(file))) {
+            return reader.readNext();
+        } catch (CsvValidationException e) {
+            throw new IOException("Invalid CSV header in file: " + file.getName() + " - " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reads header-less rows from part of a file, binding them with the file's header.
+     */
+    int readRows(Reader source, String[] header, String fileName, Consumer<ExternalTradeDTO> sink)
+            throws IOException {
+        return readRows(source, header, fileName, dtoBinding(), sink);
+    }
+
+    int readCanonicalRows(Reader source, String[] header, String fileName, Consumer<CanonicalTrade> sink)
+            throws IOException {
+        return readRows(source, header, fileName, canonicalBinding(), sink);
+    }
+
+    private <T> int read(File file, Binding<T> binding, Consumer<T> sink) throws IOException {
+        try (CSVReader reader = open(new FileReader(file))) {
+            String[] header = reader.readNext();
+            if (header == null) {
+                return 0;
+            }
+            return readRows(reader, header, file.getName(), binding, sink);
+        } catch (CsvValidationException e) {
+            throw new IOException("Invalid CSV in file: " + file.getName() + " - " + e.getMessage(), e);
+        }
+    }
+
+    private <T> int readRows(Reader source, String[] header, String fileName, Binding<T> binding,
+                             Consumer<T> sink) throws IOException {
+        try (CSVReader reader = open(source)) {
+            return readRows(reader, header, fileName, binding, sink);
+        } catch (CsvValidationException e) {
+            throw new IOException("Invalid CSV in file: " + fileName + " - " + e.getMessage(), e);
+        }
+    }
+
+    private <T> int readRows(CSVReader reader, String[] header, String fileName, Binding<T> binding,
+                             Consumer<T> sink) throws IOException, CsvValidationException {
+        BiConsumer<T, String>[] columns = resolveColumns(header, binding.resolver);
+
+        int count = 0;
+        String[] row;
+        while ((row = reader.readNext()) != null) {
+            if (row.length == 1 && row[0].isEmpty()) {
+                continue;
+            }
+
+            T trade = binding.factory.get();
+            int width = Math.min(row.length, columns.length);
+            for (int i = 0; i < width; i++) {
+                if (columns[i] == null) {
+                    continue;
+                }
+                try {
+                    columns[i].accept(trade, row[i]);
+                } catch (NumberFormatException e) {
+                    throw new IOException("Invalid value '" + row[i] + "' for column " + header[i].trim()
+                            + " at line " + reader.getLinesRead() + " in file: " + fileName, e);
+                }
+            }
+
+            sink.accept(trade);
+            count++;
+        }
+        return count;
+    }
+
+    private CSVReader open(Reader source) {
+        return new CSVReaderBuilder(new BufferedReader(source, 64 * 1024))
+                .withCSVParser(new CSVParserBuilder().withIgnoreLeadingWhiteSpace(true).build())
+                .build();
+    }
+
+    private <T> BiConsumer<T, String>[] resolveColumns(String[] header,
+                                                       Function<String, BiConsumer<T, String>> resolver) {
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        BiConsumer<T, String>[] columns = new BiConsumer[header.length];
+        for (int i = 0; i < header.length; i++) {
+            String name = header[i].trim();
+            if (i == 0 && !name.isEmpty() && name.charAt(0) == '\uFEFF') {
+                name = name.substring(1);
+            }
+            columns[i] = resolver.apply(name);
+        }
+        return columns;
+    }
+
+    private Binding<ExternalTradeDTO> dtoBinding() {
+        return new Binding<>(ExternalTradeDTO::new, name -> BINDERS.get(name.toLowerCase(Locale.ROOT)));
+    }
+
+    private Binding<CanonicalTrade> canonicalBinding() {
+        return new Binding<>(CanonicalTrade::new, canonicalTradeBinder::textBinder);
+    }
+
+    private static void register(String column, BiConsumer<ExternalTradeDTO, String> binder) {
+        BINDERS.put(column.toLowerCase(Locale.ROOT), binder);
+    }
+
+    private static final class Binding<T> {
+
+        private final Supplier<T> factory;
+        private final Function<String, BiConsumer<T, String>> resolver;
+
+        Binding(Supplier<T> factory, Function<String, BiConsumer<T, String>> resolver) {
+            this.factory = factory;
+            this.resolver = resolver;
+        }
+    }
+}
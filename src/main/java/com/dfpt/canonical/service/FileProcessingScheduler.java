@@ -0,0 +1,281 @@
+package com.dfpt.canonical.service;
+
+import com.dfpt.canonical.config.FileSchedulingProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Runs queued files on a fixed set of workers, replacing FIFO order.
+ * The next file is the one with the highest effective priority, its pattern
+ * priority plus one for every {@code priority-aging} it has waited, then the
+ * lowest aged size: its byte size minus {@code aging-per-second} for every
+ * second it has waited. Files over {@code large-file-threshold} may occupy at most
+ * {@code max-large-file-workers} workers, so small files always find one free.
+ */
+@Service
+public class FileProcessingScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileProcessingScheduler.class);
+
+    @Value("${file.processing.threads:5}")
+    private int processingThreads;
+
+    @Autowired
+    private FileSchedulingProperties properties;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final List<QueuedFile> queue = new ArrayList<>();
+    private final Map<PathMatcher, Integer> priorities = new LinkedHashMap<>();
+    private int runningLarge;
+    private boolean stopping;
+
+    private ExecutorService workers;
+
+    @PostConstruct
+    public void init() {
+        for (FileSchedulingProperties.PatternPriority entry : properties.getPriorities()) {
+            priorities.put(FileSystems.getDefault().getPathMatcher("glob:" + entry.getPattern()), entry.getPriority());
+        }
+
+        int workerCount = Math.max(1, processingThreads);
+        if (properties.getMaxLargeFileWorkers() >= workerCount) {
+            logger.warn("max-large-file-workers ({}) leaves no worker for small files",
+                    properties.getMaxLargeFileWorkers());
+        }
+
+        AtomicInteger threadCount = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(workerCount, runnable ->
+                new Thread(runnable, "file-worker-" + threadCount.incrementAndGet()));
+        for (int i = 0; i < workerCount; i++) {
+            workers.submit(this::runWorker);
+        }
+        logger.info("File processing thread pool initialized with {} threads", workerCount);
+    }
+
+    @PreDestroy
+    public void cleanup() {
+        logger.info("Shutting down file processing workers...");
+        lock.lock();
+        try {
+            // Idle workers leave takeNext(); busy ones finish their current file first
+            stopping = true;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(60, TimeUnit.SECONDS)) {
+                logger.warn("File processing workers did not stop in time, interrupting");
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Queues a file; the task receives the queued entry, including its wait time.
+     */
+    public void submit(String fileName, long size, Consumer<QueuedFile> task) {
+        QueuedFile queued = new QueuedFile(fileName, size, priorityOf(fileName),
+                size >= properties.getLargeFileThreshold().toBytes(), task);
+
+        lock.lock();
+        try {
+            queue.add(queued);
+            changed.signal();
+        } finally {
+            lock.unlock();
+        }
+        logger.debug("Queued {} ({} bytes, priority {}), {} waiting", fileName, size, queued.priority, queue.size());
+    }
+
+    /**
+     * Snapshot of the files still waiting, in the order they would run now.
+     */
+    public List<QueuedFile> getQueuedFiles() {
+        lock.lock();
+        try {
+            List<QueuedFile> snapshot = new ArrayList<>(queue);
+            long now = System.nanoTime();
+            snapshot.sort((a, b) -> compare(a, b, now));
+            return snapshot;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void runWorker() {
+        while (!Thread.currentThread().isInterrupted()) {
+            QueuedFile next;
+            try {
+                next = takeNext();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (next == null) {
+                return;
+            }
+
+            try {
+                logger.info("Starting {} after {} ms in queue", next.fileName, next.getQueueWaitMillis());
+                next.task.accept(next);
+            } catch (Throwable t) {
+                // Keep the worker alive; an Error from one file must not shrink the pool
+                logger.error("Error processing file: {}", next.fileName, t);
+            } finally {
+                if (next.large) {
+                    lock.lock();
+                    try {
+                        runningLarge--;
+                        changed.signalAll();
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Blocks for the next runnable file; returns null once shutdown has begun.
+     */
+    private QueuedFile takeNext() throws InterruptedException {
+        lock.lock();
+        try {
+            while (!stopping) {
+                QueuedFile best = null;
+                long now = System.nanoTime();
+                boolean largeAllowed = runningLarge < properties.getMaxLargeFileWorkers();
+
+                for (QueuedFile candidate : queue) {
+                    if (candidate.large && !largeAllowed) {
+                        continue;
+                    }
+                    if (best == null || compare(candidate, best, now) < 0) {
+                        best = candidate;
+                    }
+                }
+
+                if (best != null) {
+                    queue.remove(best);
+                    best.startedAt = now;
+                    if (best.large) {
+                        runningLarge++;
+                    }
+                    return best;
+                }
+                changed.await();
+            }
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int compare(QueuedFile a, QueuedFile b, long now) {
+        long aPriority = agedPriority(a, now);
+        long bPriority = agedPriority(b, now);
+        if (aPriority != bPriority) {
+            return Long.compare(bPriority, aPriority);
+        }
+        return Long.compare(agedSize(a, now), agedSize(b, now));
+    }
+
+    /**
+     * Pattern priority raised by waiting, so a steady stream of high-priority
+     * files cannot hold a low-priority one back indefinitely.
+     */
+    private long agedPriority(QueuedFile file, long now) {
+        long step = properties.getPriorityAging().toNanos();
+        if (step <= 0) {
+            return file.priority;
+        }
+        return file.priority + (now - file.enqueuedAt) / step;
+    }
+
+    private long agedSize(QueuedFile file, long now) {
+        long waitedSeconds = TimeUnit.NANOSECONDS.toSeconds(now - file.enqueuedAt);
+        return file.size - waitedSeconds * properties.getAgingPerSecond().toBytes();
+    }
+
+    private int priorityOf(String fileName) {
+        // Patterns match the file name, not any shard directories
+        Path path = Path.of(fileName).getFileName();
+        for (Map.Entry<PathMatcher, Integer> entry : priorities.entrySet()) {
+            if (entry.getKey().matches(path)) {
+                return entry.getValue();
+            }
+        }
+        return 0;
+    }
+
+    public static class QueuedFile {
+
+        private static final long NOT_STARTED = Long.MIN_VALUE;
+
+        private final String fileName;
+        private final long size;
+        private final int priority;
+        private final boolean large;
+        private final Consumer<QueuedFile> task;
+        private final long enqueuedAt = System.nanoTime();
+        private volatile long startedAt = NOT_STARTED;
+
+        QueuedFile(String fileName, long size, int priority, boolean large, Consumer<QueuedFile> task) {
+            this.fileName = fileName;
+            this.size = size;
+            this.priority = priority;
+            this.large = large;
+            this.task = task;
+        }
+
+        public String getFileName() {
+            return fileName;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public int getPriority() {
+            return priority;
+        }
+
+        public boolean isLarge() {
+            return large;
+        }
+
+        /**
+         * Time spent waiting for a worker; still growing while the file is queued.
+         */
+        public long getQueueWaitMillis() {
+            long end = startedAt != NOT_STARTED ? startedAt : System.nanoTime();
+            return TimeUnit.NANOSECONDS.toMillis(end - enqueuedAt);
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.dfpt.canonical.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Decides when an input file is complete enough to process.
+ * <ul>
+ *   <li>{@code stability}: the file is polled until its size and mtime stop
+ *   changing; the poll interval starts small and doubles while the file grows.</li>
+ *   <li>{@code marker}: the file is ready once {@code <name>.done} or
+ *   {@code <name>.ok} exists next to it.</li>
+ *   <li>{@code rename}: producers write under a temporary name and rename into
+ *   place, so a file is ready as soon as it appears.</li>
+ * </ul>
+ * A marker file makes a data file ready under every strategy. Repeated watch
+ * events for a file already being tracked are coalesced into its next poll.
+ */
+@Service
+public class FileReadinessTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileReadinessTracker.class);
+
+    @Value("${file.processing.readiness.strategy:stability}")
+    private String strategy;
+
+    @Value("${file.processing.readiness.min-poll-interval:50ms}")
+    private Duration minPollInterval;
+
+    @Value("${file.processing.readiness.max-poll-interval:2s}")
+    private Duration maxPollInterval;
+
+    @Value("${file.processing.readiness.stable-polls:2}")
+    private int stablePolls;
+
+    @Value("${file.processing.readiness.marker-suffixes:.done,.ok}")
+    private List<String> markerSuffixes;
+
+    private final Map<Path, TrackedFile> tracked = new HashMap<>();
+    private ScheduledExecutorService poller;
+
+    @PostConstruct
+    public void init() {
+        poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "file-readiness");
+            thread.setDaemon(true);
+            return thread;
+        });
+        logger.info("File readiness strategy: {}", strategy);
+    }
+
+    @PreDestroy
+    public void cleanup() {
+        poller.shutdownNow();
+    }
+
+    /**
+     * Returns true for marker files and temporary upload names, which are never
+     * processed themselves.
+     */
+    public boolean isControlFile(String fileName) {
+        String lower = fileName.toLowerCase(Locale.ROOT);
+        return fileName.startsWith(".") || fileName.startsWith("~")
+                || lower.endsWith(".tmp") || lower.endsWith(".part") || lower.endsWith(".filepart")
+                || markerSuffix(fileName) != null;
+    }
+
+    /**
+     * Reports a marker file; returns the data file name it releases, or null if
+     * the name is not a marker.
+     */
+    public String dataFileFor(String markerName) {
+        String suffix = markerSuffix(markerName);
+        return suffix != null ? markerName.substring(0, markerName.length() - suffix.length()) : null;
+    }
+
+    /**
+     * Called for every watch event or scan hit on a data file; onReady runs once,
+     * on the readiness thread, when the file is complete.
+     */
+    public synchronized void track(Path file, Consumer<Path> onReady) {
+        TrackedFile existing = tracked.get(file);
+        if (existing != null) {
+            existing.dirty = true;
+            return;
+        }
+
+        if (hasMarker(file) || "rename".equalsIgnoreCase(strategy)) {
+            poller.execute(() -> onReady.accept(file));
+            return;
+        }
+        if ("marker".equalsIgnoreCase(strategy)) {
+            logger.debug("Waiting for marker file for {}", file.getFileName());
+            return;
+        }
+
+        TrackedFile trackedFile = new TrackedFile(file, onReady);
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            trackedFile.size = attributes.size();
+            trackedFile.modified = attributes.lastModifiedTime().toMillis();
+        } catch (IOException e) {
+            // Compared on the first poll instead
+        }
+        tracked.put(file, trackedFile);
+        schedule(trackedFile);
+    }
+
+    /**
+     * Releases a data file whose marker has arrived, without waiting for stability.
+     */
+    public synchronized void markerArrived(Path file, Consumer<Path> onReady) {
+        if (!Files.exists(file)) {
+            return;
+        }
+        tracked.remove(file);
+        poller.execute(() -> onReady.accept(file));
+    }
+
+    private void schedule(TrackedFile trackedFile) {
+        poller.schedule(() -> poll(trackedFile), trackedFile.interval, TimeUnit.MILLISECONDS);
+    }
+
+    private void poll(TrackedFile trackedFile) {
+        synchronized (this) {
+            if (tracked.get(trackedFile.file) != trackedFile) {
+                // Released by a marker in the meantime
+                return;
+            }
+
+            BasicFileAttributes attributes;
+            try {
+                attributes = Files.readAttributes(trackedFile.file, BasicFileAttributes.class);
+            } catch (NoSuchFileException e) {
+                tracked.remove(trackedFile.file);
+                logger.debug("{} disappeared before it became ready", trackedFile.file.getFileName());
+                return;
+            } catch (IOException e) {
+                logger.warn("Cannot read attributes of {}: {}", trackedFile.file, e.getMessage());
+                trackedFile.stableCount = 0;
+                schedule(trackedFile);
+                return;
+            }
+
+            long size = attributes.size();
+            long modified = attributes.lastModifiedTime().toMillis();
+            boolean changed = trackedFile.dirty || size != trackedFile.size || modified != trackedFile.modified;
+            trackedFile.dirty = false;
+            trackedFile.size = size;
+            trackedFile.modified = modified;
+
+            if (changed) {
+                // Still being written: look less often
+                trackedFile.stableCount = 0;
+                trackedFile.interval = Math.min(trackedFile.interval * 2, maxPollInterval.toMillis());
+                schedule(trackedFile);
+                return;
+            }
+
+            if (++trackedFile.stableCount < stablePolls) {
+                schedule(trackedFile);
+                return;
+            }
+
+            tracked.remove(trackedFile.file);
+        }
+
+        logger.debug("{} stable at {} bytes", trackedFile.file.getFileName(), trackedFile.size);
+        trackedFile.onReady.accept(trackedFile.file);
+    }
+
+    private boolean hasMarker(Path file) {
+        for (String suffix : markerSuffixes) {
+            if (Files.exists(file.resolveSibling(file.getFileName() + suffix))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String markerSuffix(String fileName) {
+        String lower = fileName.toLowerCase(Locale.ROOT);
+        for (String suffix : markerSuffixes) {
+            if (lower.endsWith(suffix.toLowerCase(Locale.ROOT)) && fileName.length() > suffix.length()) {
+                return fileName.substring(fileName.length() - suffix.length());
+            }
+        }
+        return null;
+    }
+
+    private class TrackedFile {
+
+        private final Path file;
+        private final Consumer<Path> onReady;
+        private long interval = minPollInterval.toMillis();
+        private long size = -1;
+        private long modified = -1;
+        private int stableCount;
+        private boolean dirty;
+
+        TrackedFile(Path file, Consumer<Path> onReady) {
+            this.file = file;
+            this.onReady = onReady;
+        }
+    }
+}
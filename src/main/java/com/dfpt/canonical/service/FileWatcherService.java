@@ -13,10 +13,10 @@ import jakarta.annotation.PreDestroy;
 import java.io.File;
 import java.nio.file.*;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
 
 
 @Service
@@ -27,26 +27,30 @@ public class FileWatcherService {
     @Value("${input.directory:./input}")
     private String inputDirectory;
     
-    @Value("${file.processing.threads:5}")
-    private int processingThreads;
-
     @Autowired
     private TradeProcessingService tradeProcessingService;
+
+    @Autowired
+    private FileProcessingScheduler fileProcessingScheduler;
+
+    @Autowired
+    private FileReadinessTracker fileReadinessTracker;
+
+    @Autowired
+    private ProcessedFileLedger processedFileLedger;
+
+    @Autowired
+    private InputDirectoryScanner inputDirectoryScanner;
     
-    private Set<String> processedFiles = new HashSet<>();
     private Set<String> processingFiles = new HashSet<>();
     private WatchService watchService;
     private Path inputPath;
-    private ExecutorService fileProcessingExecutor;
+    private ExecutorService rescanExecutor;
 
    
     @PostConstruct
     public void init() {
         try {
-            // Initialize thread pool for parallel file processing
-            fileProcessingExecutor = Executors.newFixedThreadPool(processingThreads);
-            logger.info("File processing thread pool initialized with {} threads", processingThreads);
-            
             inputPath = Paths.get(inputDirectory).toAbsolutePath();
             File inputDir = inputPath.toFile();
             
@@ -56,6 +60,8 @@ public class FileWatcherService {
             }
             
             logger.info("Monitoring: {}", inputPath);
+            
+            rescanExecutor = Executors.newSingleThreadExecutor();
         
             startWatching();
             
@@ -67,19 +73,15 @@ public class FileWatcherService {
     @PreDestroy
     public void cleanup() {
         try {
-            logger.info("Shutting down file processing executor...");
-            fileProcessingExecutor.shutdown();
-            if (!fileProcessingExecutor.awaitTermination(60, TimeUnit.SECONDS)) {
-                fileProcessingExecutor.shutdownNow();
+            if (rescanExecutor != null) {
+                rescanExecutor.shutdownNow();
             }
-            
             if (watchService != null) {
                 watchService.close();
             }
             logger.info("File watcher service shut down successfully");
         } catch (Exception e) {
             logger.error("Error during cleanup", e);
-            fileProcessingExecutor.shutdownNow();
         }
     }
 
@@ -98,6 +100,10 @@ public class FileWatcherService {
                     
                     for (WatchEvent<?> event : key.pollEvents()) {
                         if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            // Events were dropped; rescan now instead of waiting for the sweep,
+                            // off this thread so the watcher keeps draining events
+                            logger.warn("Watch events overflowed, rescanning {}", inputPath);
+                            rescanExecutor.execute(this::scanForUnprocessedFiles);
                             continue;
                         }
                         
@@ -105,7 +111,7 @@ public class FileWatcherService {
                         WatchEvent<Path> ev = (WatchEvent<Path>) event;
                         String fileName = ev.context().toString();
                         
-                        handleNewFile(fileName);
+                        onFileEvent(fileName);
                     }
                     
                     key.reset();
@@ -120,9 +126,54 @@ public class FileWatcherService {
         watchThread.start();
     }
 
+    /**
+     * Hands a new or changed file to the readiness tracker; marker files release
+     * the data file they belong to.
+     */
+    private void onFileEvent(String fileName) {
+        String dataFile = fileReadinessTracker.dataFileFor(fileName);
+        if (dataFile != null) {
+            if (isPending(dataFile)) {
+                fileReadinessTracker.markerArrived(inputPath.resolve(dataFile), this::onFileReady);
+            }
+            return;
+        }
+        
+        if (fileReadinessTracker.isControlFile(fileName) || !isPending(fileName)) {
+            return;
+        }
+        
+        fileReadinessTracker.track(inputPath.resolve(fileName), this::onFileReady);
+    }
+    
+    private boolean isPending(String fileName) {
+        synchronized (processingFiles) {
+            if (!isSupportedFile(fileName) || processingFiles.contains(fileName)) {
+                return false;
+            }
+        }
+        return !isProcessed(fileName);
+    }
+    
+    /**
+     * Ledger lookup by name, size and mtime; does not read the file
+     */
+    private boolean isProcessed(String fileName) {
+        File file = inputPath.resolve(fileName).toFile();
+        return processedFileLedger.isProcessed(fileName, file.length(), file.lastModified());
+    }
+    
+    private void onFileReady(Path file) {
+        handleNewFile(inputPath.relativize(file).toString().replace(File.separatorChar, '/'));
+    }
+
     private void handleNewFile(String fileName) {
+        if (isProcessed(fileName)) {
+            return;
+        }
+        
         synchronized (processingFiles) {
-            if (processedFiles.contains(fileName) || processingFiles.contains(fileName)) {
+            if (processingFiles.contains(fileName)) {
                 return;
             }
             
@@ -136,22 +187,33 @@ public class FileWatcherService {
         
         logger.info("New file: {}", fileName);
         
-        // Submit file processing task to thread pool
-        fileProcessingExecutor.submit(() -> {
+        // Queue the file; the scheduler orders work by priority, size and age
+        long size = inputPath.resolve(fileName).toFile().length();
+        fileProcessingScheduler.submit(fileName, size, queued -> {
             try {
-                // Small delay to ensure file is fully written
-                Thread.sleep(500);
-                
-                logger.info("Processing file: {} on thread: {}", fileName, Thread.currentThread().getName());
-                
-                ProcessingResult result = tradeProcessingService.processTradeFile(fileName);
+                File file = inputPath.resolve(fileName).toFile();
+                long fileSize = file.length();
+                long modified = file.lastModified();
+                String contentHash = processedFileLedger.hash(file);
                 
-                logger.info("Processed: {} - Status: {} - Success: {}/{} on thread: {}", 
-                    fileName, result.getStatus(), result.getSuccessCount(), 
-                    result.getTotalRecords(), Thread.currentThread().getName());
+                String original = processedFileLedger.findDuplicate(contentHash);
+                if (original != null) {
+                    logger.info("Skipping {}: same content as already processed {}", fileName, original);
+                    processedFileLedger.record(fileName, fileSize, modified, contentHash, "DUPLICATE");
+                } else {
+                    logger.info("Processing file: {} on thread: {}", fileName, Thread.currentThread().getName());
+                    
+                    ProcessingResult result = tradeProcessingService.processTradeFile(fileName);
+                    result.setQueueWaitMillis(queued.getQueueWaitMillis());
+                    
+                    logger.info("Processed: {} - Status: {} - Success: {}/{} - Queue wait: {} ms on thread: {}", 
+                        fileName, result.getStatus(), result.getSuccessCount(), 
+                        result.getTotalRecords(), result.getQueueWaitMillis(), Thread.currentThread().getName());
+                    
+                    processedFileLedger.record(fileName, fileSize, modified, contentHash, result.getStatus());
+                }
                 
                 synchronized (processingFiles) {
-                    processedFiles.add(fileName);
                     processingFiles.remove(fileName);
                 }
                 
@@ -166,26 +228,20 @@ public class FileWatcherService {
         });
     }
 
+    /**
+     * Picks up files the watcher missed. Only files new since the previous scan are
+     * returned, and the processing lock is taken per candidate, not per directory entry.
+     */
     @Scheduled(fixedDelay = 30000)
     public void scanForUnprocessedFiles() {
         try {
-            File inputDir = inputPath.toFile();
-            File[] files = inputDir.listFiles();
+            List<String> candidates = inputDirectoryScanner.scan(inputPath,
+                name -> isSupportedFile(name) && !fileReadinessTracker.isControlFile(name));
             
-            if (files != null) {
-                for (File file : files) {
-                    if (file.isFile()) {
-                        String fileName = file.getName();
-                        
-                        synchronized (processingFiles) {
-                            if (!processedFiles.contains(fileName) && 
-                                !processingFiles.contains(fileName) &&
-                                isSupportedFile(fileName)) {
-                                logger.info("Found unprocessed: {}", fileName);
-                                handleNewFile(fileName);
-                            }
-                        }
-                    }
+            for (String fileName : candidates) {
+                if (isPending(fileName)) {
+                    logger.info("Found unprocessed: {}", fileName);
+                    onFileEvent(fileName);
                 }
             }
         } catch (Exception e) {
@@ -203,16 +259,14 @@ public class FileWatcherService {
     
 
     public void resetProcessedFiles() {
+        processedFileLedger.clear();
         synchronized (processingFiles) {
-            processedFiles.clear();
             processingFiles.clear();
         }
     }
     
     public int getProcessedFileCount() {
-        synchronized (processingFiles) {
-            return processedFiles.size();
-        }
+        return processedFileLedger.size();
     }
     
     public int getProcessingFileCount() {
@@ -0,0 +1,389 @@
+package com.dfpt.canonical.service;
+
+import com.dfpt.canonical.config.FixedWidthLayoutProperties;
+import com.dfpt.canonical.dto.ExternalTradeDTO;
+import com.dfpt.canonical.model.CanonicalTrade;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * A fixed-width record layout compiled from a layout descriptor.
+ * Each column is bound to its setter through a LambdaMetafactory-generated
+ * {@link BiConsumer}, so parsing a line runs the same code as a hand-written parser.
+ * Every layout is compiled twice: for {@link ExternalTradeDTO} and for direct
+ * binding onto {@link CanonicalTrade}.
+ */
+class FixedWidthLayout {
+
+    private static final long INVALID = Long.MIN_VALUE;
+
+    static final FixedWidthLayoutProperties.Layout DEFAULT = new FixedWidthLayoutProperties.Layout(
+            "default", null, 114, List.of(
+                    field("originatorType", 1, 1, FixedWidthLayoutProperties.FieldType.STRING, 0),
+                    field("firmNumber", 2, 5, FixedWidthLayoutProperties.FieldType.INTEGER, 0),
+                    field("fundNumber", 6, 9, FixedWidthLayoutProperties.FieldType.INTEGER, 0),
+                    field("transactionType", 10, 10, FixedWidthLayoutProperties.FieldType.STRING, 0),
+                    field("transactionId", 11, 26, FixedWidthLayoutProperties.FieldType.STRING, 0),
+                    field("tradeDateTime", 27, 40, FixedWidthLayoutProperties.FieldType.STRING, 0),
+                    field("dollarAmount", 41, 56, FixedWidthLayoutProperties.FieldType.DECIMAL, 2),
+                    field("clientName", 77, 96, FixedWidthLayoutProperties.FieldType.STRING, 0),
+                    field("ssn", 97, 105, FixedWidthLayoutProperties.FieldType.STRING, 0),
+                    field("dob", 106, 113, FixedWidthLayoutProperties.FieldType.STRING, 0),
+                    field("shareQuantity", 114, 130, FixedWidthLayoutProperties.FieldType.DECIMAL, 0)));
+
+    private final String name;
+    private final PathMatcher fileMatcher;
+    private final byte[] headerPrefix;
+    private final boolean skipHeader;
+    private final int minLength;
+    private final int trailingDelimiter;
+    private final RecordParser<ExternalTradeDTO> dtoParser;
+    private final RecordParser<CanonicalTrade> canonicalParser;
+
+    private FixedWidthLayout(FixedWidthLayoutProperties.Layout definition, CanonicalTradeBinder canonicalTradeBinder) {
+        if (definition.getFields() == null || definition.getFields().isEmpty()) {
+            throw new IllegalStateException("Fixed-width layout '" + definition.getName() + "' has no fields");
+        }
+
+        this.name = definition.getName();
+        this.fileMatcher = definition.getFilePattern() != null
+                ? FileSystems.getDefault().getPathMatcher("glob:" + definition.getFilePattern())
+                : null;
+        this.headerPrefix = definition.getHeaderPrefix() != null
+                ? definition.getHeaderPrefix().getBytes(StandardCharsets.ISO_8859_1)
+                : null;
+        this.skipHeader = definition.isSkipHeader();
+
+        String delimiter = definition.getTrailingDelimiter();
+        this.trailingDelimiter = delimiter != null && delimiter.length() == 1 ? delimiter.charAt(0) : -1;
+
+        List<FixedWidthLayoutProperties.Field> fields = definition.getFields();
+        Column<ExternalTradeDTO>[] dtoColumns = newColumns(fields.size());
+        Column<CanonicalTrade>[] canonicalColumns = newColumns(fields.size());
+        int maxEnd = 0;
+        for (int i = 0; i < fields.size(); i++) {
+            FixedWidthLayoutProperties.Field field = fields.get(i);
+            validate(field);
+            dtoColumns[i] = compileColumn(field, ExternalTradeDTO.class, null);
+            canonicalColumns[i] = compileColumn(field, CanonicalTrade.class, canonicalTradeBinder.textBinder(field.getName()));
+            maxEnd = Math.max(maxEnd, field.getEnd());
+        }
+        this.minLength = definition.getMinLength() != null ? definition.getMinLength() : maxEnd;
+        this.dtoParser = new RecordParser<>(ExternalTradeDTO::new, dtoColumns);
+        this.canonicalParser = new RecordParser<>(CanonicalTrade::new, canonicalColumns);
+    }
+
+    static FixedWidthLayout compile(FixedWidthLayoutProperties.Layout definition,
+                                    CanonicalTradeBinder canonicalTradeBinder) {
+        return new FixedWidthLayout(definition, canonicalTradeBinder);
+    }
+
+    String getName() {
+        return name;
+    }
+
+    boolean isSkipHeader() {
+        return skipHeader;
+    }
+
+    /**
+     * A layout matches when both its file pattern and header prefix (if set) match.
+     */
+    boolean matches(String fileName, byte[] firstLine, int firstLineLength) {
+        if (fileMatcher != null && !fileMatcher.matches(Path.of(fileName))) {
+            return false;
+        }
+        if (headerPrefix == null) {
+            return true;
+        }
+        if (firstLineLength < headerPrefix.length) {
+            return false;
+        }
+        for (int i = 0; i < headerPrefix.length; i++) {
+            if (firstLine[i] != headerPrefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    RecordParser<ExternalTradeDTO> dtoParser() {
+        return dtoParser;
+    }
+
+    /**
+     * Parser that fills {@link CanonicalTrade} directly, converting originator type
+     * and dates inline instead of going through {@link ExternalTradeDTO}.
+     */
+    RecordParser<CanonicalTrade> canonicalParser() {
+        return canonicalParser;
+    }
+
+    private static FixedWidthLayoutProperties.Field field(String name, int start, int end,
+                                                          FixedWidthLayoutProperties.FieldType type, int decimals) {
+        return new FixedWidthLayoutProperties.Field(name, start, end, type, decimals);
+    }
+
+    private void validate(FixedWidthLayoutProperties.Field field) {
+        if (field.getStart() < 1 || field.getEnd() < field.getStart()) {
+            throw new IllegalStateException("Invalid columns " + field.getStart() + "-" + field.getEnd()
+                    + " for field '" + field.getName() + "' in layout '" + name + "'");
+        }
+    }
+
+    /**
+     * Compiles one column for the given target. Text columns may supply a converting
+     * binder (used for the canonical target); otherwise the target's setter is bound.
+     */
+    private <T> Column<T> compileColumn(FixedWidthLayoutProperties.Field field, Class<T> target,
+                                        BiConsumer<T, String> textBinder) {
+        switch (field.getType()) {
+            case INTEGER:
+                return new IntegerColumn<>(field, setter(target, field.getName(), Integer.class));
+            case DECIMAL:
+                return new DecimalColumn<>(field, setter(target, field.getName(), BigDecimal.class));
+            default:
+                return new StringColumn<>(field, textBinder != null
+                        ? textBinder
+                        : setter(target, field.getName(), String.class));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T, V> BiConsumer<T, V> setter(Class<T> target, String property, Class<V> type) {
+        String methodName = "set" + Character.toUpperCase(property.charAt(0)) + property.substring(1);
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            MethodHandle handle = lookup.findVirtual(target, methodName, MethodType.methodType(void.class, type));
+            CallSite site = LambdaMetafactory.metafactory(lookup, "accept",
+                    MethodType.methodType(BiConsumer.class),
+                    MethodType.methodType(void.class, Object.class, Object.class),
+                    handle, handle.type());
+            return (BiConsumer<T, V>) site.getTarget().invokeExact();
+        } catch (Throwable e) {
+            throw new IllegalStateException("No setter " + target.getSimpleName() + "." + methodName + "("
+                    + type.getSimpleName() + ") for field '" + property + "' in layout '" + name + "'", e);
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <T> Column<T>[] newColumns(int size) {
+        return new Column[size];
+    }
+
+    /**
+     * Parses lines of this layout into one target type.
+     */
+    final class RecordParser<T> {
+
+        private final Supplier<T> factory;
+        private final Column<T>[] columns;
+
+        private RecordParser(Supplier<T> factory, Column<T>[] columns) {
+            this.factory = factory;
+            this.columns = columns;
+        }
+
+        /**
+         * Parses an ASCII line; returns null when the line is too short to be a record.
+         */
+        T parse(byte[] line, int length) {
+            if (line[length - 1] == trailingDelimiter) {
+                length--;
+            }
+            if (length < minLength) {
+                return null;
+            }
+
+            T record = factory.get();
+            for (Column<T> column : columns) {
+                column.bind(record, line, length);
+            }
+            return record;
+        }
+
+        /**
+         * Character-based variant for lines whose byte offsets differ from column offsets.
+         */
+        T parse(String line) {
+            if (trailingDelimiter >= 0 && !line.isEmpty() && line.charAt(line.length() - 1) == trailingDelimiter) {
+                line = line.substring(0, line.length() - 1);
+            }
+            if (line.length() < minLength) {
+                return null;
+            }
+
+            T record = factory.get();
+            for (Column<T> column : columns) {
+                column.bind(record, line);
+            }
+            return record;
+        }
+    }
+
+    private abstract static class Column<T> {
+
+        final int from;
+        final int to;
+
+        Column(FixedWidthLayoutProperties.Field field) {
+            this.from = field.getStart() - 1;
+            this.to = field.getEnd();
+        }
+
+        abstract void bind(T record, byte[] line, int length);
+
+        abstract void bind(T record, String line);
+
+        String text(String line) {
+            return to > line.length() ? "" : line.substring(from, to).trim();
+        }
+
+        /**
+         * Parses an optionally signed run of ASCII digits, ignoring surrounding blanks.
+         * Returns {@link #INVALID} for empty, malformed or overlong values.
+         */
+        long digits(byte[] line, int length) {
+            if (to > length) {
+                return INVALID;
+            }
+
+            int start = from;
+            int end = to;
+            while (start < end && line[start] <= ' ') {
+                start++;
+            }
+            while (end > start && line[end - 1] <= ' ') {
+                end--;
+            }
+
+            boolean negative = false;
+            if (start < end && (line[start] == '-' || line[start] == '+')) {
+                negative = line[start] == '-';
+                start++;
+            }
+
+            if (start == end || end - start > 18) {
+                return INVALID;
+            }
+
+            long value = 0;
+            for (int i = start; i < end; i++) {
+                int digit = line[i] - '0';
+                if (digit < 0 || digit > 9) {
+                    return INVALID;
+                }
+                value = value * 10 + digit;
+            }
+            return negative ? -value : value;
+        }
+    }
+
+    private static final class StringColumn<T> extends Column<T> {
+
+        private final BiConsumer<T, String> setter;
+
+        StringColumn(FixedWidthLayoutProperties.Field field, BiConsumer<T, String> setter) {
+            super(field);
+            this.setter = setter;
+        }
+
+        @Override
+        void bind(T record, byte[] line, int length) {
+            if (to > length) {
+                setter.accept(record, "");
+                return;
+            }
+
+            int start = from;
+            int end = to;
+            while (start < end && line[start] <= ' ') {
+                start++;
+            }
+            while (end > start && line[end - 1] <= ' ') {
+                end--;
+            }
+            setter.accept(record, start == end ? "" : new String(line, start, end - start, StandardCharsets.ISO_8859_1));
+        }
+
+        @Override
+        void bind(T record, String line) {
+            setter.accept(record, text(line));
+        }
+    }
+
+    private static final class IntegerColumn<T> extends Column<T> {
+
+        private final BiConsumer<T, Integer> setter;
+
+        IntegerColumn(FixedWidthLayoutProperties.Field field, BiConsumer<T, Integer> setter) {
+            super(field);
+            this.setter = setter;
+        }
+
+        @Override
+        void bind(T record, byte[] line, int length) {
+            long value = digits(line, length);
+            setter.accept(record, value == INVALID || value < Integer.MIN_VALUE || value > Integer.MAX_VALUE
+                    ? null : (int) value);
+        }
+
+        @Override
+        void bind(T record, String line) {
+            String value = text(line);
+            Integer parsed = null;
+            if (!value.isEmpty()) {
+                try {
+                    parsed = Integer.parseInt(value);
+                } catch (NumberFormatException e) {
+                    parsed = null;
+                }
+            }
+            setter.accept(record, parsed);
+        }
+    }
+
+    private static final class DecimalColumn<T> extends Column<T> {
+
+        private final BiConsumer<T, BigDecimal> setter;
+        private final int scale;
+
+        DecimalColumn(FixedWidthLayoutProperties.Field field, BiConsumer<T, BigDecimal> setter) {
+            super(field);
+            this.setter = setter;
+            this.scale = field.getDecimals();
+        }
+
+        @Override
+        void bind(T record, byte[] line, int length) {
+            long unscaled = digits(line, length);
+            setter.accept(record, unscaled == INVALID ? BigDecimal.ZERO : BigDecimal.valueOf(unscaled, scale));
+        }
+
+        @Override
+        void bind(T record, String line) {
+            String value = text(line);
+            BigDecimal parsed = BigDecimal.ZERO;
+            if (!value.isEmpty()) {
+                try {
+                    parsed = BigDecimal.valueOf(Long.parseLong(value), scale);
+                } catch (NumberFormatException e) {
+                    parsed = BigDecimal.ZERO;
+                }
+            }
+            setter.accept(record, parsed);
+        }
+    }
+}
@@ -1,107 +1,262 @@
 package com.dfpt.canonical.service;
 
+import com.dfpt.canonical.config.FixedWidthLayoutProperties;
 import com.dfpt.canonical.dto.ExternalTradeDTO;
+import com.dfpt.canonical.model.CanonicalTrade;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.io.BufferedReader;
+import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileReader;
+import java.io.FileInputStream;
 import java.io.IOException;
-import java.math.BigDecimal;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
+/**
+ * Parses fixed-width trade files.
+ * The file is memory-mapped in windows and each line is parsed straight from its
+ * bytes: numeric columns are accumulated digit by digit without intermediate
+ * Strings. Lines containing non-ASCII bytes fall back to character-based parsing
+ * so column offsets stay correct for multi-byte text.
+ * Column layouts come from {@link FixedWidthLayoutProperties} and are compiled at
+ * startup; each file uses the first layout matching its name and first line.
+ */
 @Service
 public class FixedWidthParserService {
 
+    private static final Logger logger = LoggerFactory.getLogger(FixedWidthParserService.class);
+
+    private static final long MAP_WINDOW = 256L * 1024 * 1024;
+
+    @Autowired
+    private FixedWidthLayoutProperties layoutProperties;
+
+    @Autowired
+    private CanonicalTradeBinder canonicalTradeBinder;
+
+    private final List<FixedWidthLayout> layouts = new ArrayList<>();
+
+    @PostConstruct
+    public void init() {
+        for (FixedWidthLayoutProperties.Layout definition : layoutProperties.getLayouts()) {
+            layouts.add(FixedWidthLayout.compile(definition, canonicalTradeBinder));
+        }
+        layouts.add(FixedWidthLayout.compile(FixedWidthLayout.DEFAULT, canonicalTradeBinder));
+        logger.info("Compiled {} fixed-width layouts", layouts.size());
+    }
+
     public List<ExternalTradeDTO> parseFixedWidthFile(File file) throws IOException {
         List<ExternalTradeDTO> trades = new ArrayList<>();
-        
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            
-            while ((line = reader.readLine()) != null) {
-                if (line.trim().isEmpty()) {
+        parseFixedWidthFile(file, trades::add);
+        return trades;
+    }
+
+    public int parseFixedWidthFile(File file, Consumer<ExternalTradeDTO> sink) throws IOException {
+        return parseFile(file, FixedWidthLayout::dtoParser, sink);
+    }
+
+    public int parseCanonicalFile(File file, Consumer<CanonicalTrade> sink) throws IOException {
+        return parseFile(file, FixedWidthLayout::canonicalParser, sink);
+    }
+
+    /**
+     * Parses the lines in [start, end) of the file with a layout chosen up front,
+     * so ranges of one file can be parsed independently. The range must begin at
+     * the start of a line.
+     */
+    int parseFixedWidthRange(File file, long start, long end, FixedWidthLayout layout,
+                             Consumer<ExternalTradeDTO> sink) throws IOException {
+        return parseRange(file, start, end, layout, FixedWidthLayout::dtoParser, sink);
+    }
+
+    int parseCanonicalRange(File file, long start, long end, FixedWidthLayout layout,
+                            Consumer<CanonicalTrade> sink) throws IOException {
+        return parseRange(file, start, end, layout, FixedWidthLayout::canonicalParser, sink);
+    }
+
+    /**
+     * Selects the layout for a file from its name and first non-blank line.
+     */
+    FixedWidthLayout layoutFor(File file) throws IOException {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            byte[] line = new byte[256];
+            int length = 0;
+            int b;
+            while ((b = in.read()) != -1) {
+                if (b == '\n' || b == '\r') {
+                    if (!isBlank(line, length)) {
+                        break;
+                    }
+                    length = 0;
                     continue;
                 }
-                
-                if (line.endsWith("|")) {
-                    line = line.substring(0, line.length() - 1);
+                if (length == line.length) {
+                    line = Arrays.copyOf(line, length * 2);
                 }
-                
-                if (line.length() < 114) {
+                line[length++] = (byte) b;
+            }
+            return selectLayout(file.getName(), line, length);
+        }
+    }
+
+    private <T> int parseFile(File file, Function<FixedWidthLayout, FixedWidthLayout.RecordParser<T>> parserSelector,
+                              Consumer<T> sink) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            LineHandler<T> handler = new LineHandler<>(file.getName(), null, parserSelector, sink);
+            parseRange(channel, 0, channel.size(), handler, file.getName());
+            return handler.count;
+        }
+    }
+
+    private <T> int parseRange(File file, long start, long end, FixedWidthLayout layout,
+                               Function<FixedWidthLayout, FixedWidthLayout.RecordParser<T>> parserSelector,
+                               Consumer<T> sink) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            LineHandler<T> handler = new LineHandler<>(file.getName(), layout, parserSelector, sink);
+            handler.headerPending = start == 0 && layout.isSkipHeader();
+            parseRange(channel, start, end, handler, file.getName());
+            return handler.count;
+        }
+    }
+
+    private void parseRange(FileChannel channel, long start, long end, LineHandler<?> handler, String fileName)
+            throws IOException {
+        byte[] line = new byte[256];
+        long position = start;
+
+        while (position < end) {
+            int window = (int) Math.min(MAP_WINDOW, end - position);
+            boolean lastWindow = position + window == end;
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, window);
+
+            int lineStart = 0;
+            int i = 0;
+            while (i < window) {
+                byte b = buffer.get(i);
+                if (b != '\n' && b != '\r') {
+                    i++;
                     continue;
                 }
-                
-                ExternalTradeDTO dto = parseLine(line);
-                trades.add(dto);
+
+                line = copyLine(buffer, lineStart, i, line);
+                handler.handle(line, i - lineStart);
+
+                if (b == '\r' && i + 1 < window && buffer.get(i + 1) == '\n') {
+                    i++;
+                }
+                lineStart = ++i;
+            }
+
+            if (lastWindow) {
+                if (lineStart < window) {
+                    line = copyLine(buffer, lineStart, window, line);
+                    handler.handle(line, window - lineStart);
+                }
+                position = end;
+            } else {
+                if (lineStart == 0) {
+                    throw new IOException("Line exceeds " + MAP_WINDOW + " bytes in file: " + fileName);
+                }
+                position += lineStart;
             }
         }
-        
-        return trades;
     }
-    
-    
-    private ExternalTradeDTO parseLine(String line) {
-        ExternalTradeDTO dto = new ExternalTradeDTO();
-        
-        dto.setOriginatorType(extract(line, 1, 1));
-        dto.setFirmNumber(parseInteger(extract(line, 2, 5)));
-        dto.setFundNumber(parseInteger(extract(line, 6, 9)));
-        dto.setTransactionType(extract(line, 10, 10));
-        dto.setTransactionId(extract(line, 11, 26));
-        dto.setTradeDateTime(extract(line, 27, 40));
-        dto.setDollarAmount(parseAmount(extract(line, 41, 56), 2)); 
-        dto.setClientAccountNo(null);
-        dto.setClientName(extract(line, 77, 96));
-        dto.setSsn(extract(line, 97, 105));
-        dto.setDob(extract(line, 106, 113));
-        dto.setShareQuantity(parseAmount(extract(line, 114, 130), 0)); 
-        
-        return dto;
+
+    private byte[] copyLine(MappedByteBuffer buffer, int start, int end, byte[] line) {
+        int length = end - start;
+        if (length > line.length) {
+            line = new byte[Math.max(length, line.length * 2)];
+        }
+        buffer.get(start, line, 0, length);
+        return line;
     }
-    
-    
-    private String extract(String line, int start, int end) {
-        int startIdx = start - 1;
-        int endIdx = end;
-        
-        if (startIdx < 0 || endIdx > line.length()) {
-            return "";
+
+    private FixedWidthLayout selectLayout(String fileName, byte[] firstLine, int length) {
+        for (FixedWidthLayout layout : layouts) {
+            if (layout.matches(fileName, firstLine, length)) {
+                return layout;
+            }
         }
-        
-        return line.substring(startIdx, endIdx).trim();
+        throw new IllegalStateException("No fixed-width layout matches file: " + fileName);
     }
-    
-    
-    private BigDecimal parseAmount(String value, int decimals) {
-        if (value == null || value.isEmpty()) {
-            return BigDecimal.ZERO;
+
+    private static boolean isBlank(byte[] line, int length) {
+        for (int i = 0; i < length; i++) {
+            if (line[i] < 0 || line[i] > ' ') {
+                return false;
+            }
         }
-        
-        try {
-            long longValue = Long.parseLong(value);
-            BigDecimal amount = BigDecimal.valueOf(longValue);
-            
-            if (decimals > 0) {
-                amount = amount.divide(BigDecimal.TEN.pow(decimals));
+        return true;
+    }
+
+    private static boolean isAscii(byte[] line, int length) {
+        for (int i = 0; i < length; i++) {
+            if (line[i] < 0) {
+                return false;
             }
-            
-            return amount;
-        } catch (NumberFormatException e) {
-            return BigDecimal.ZERO;
         }
+        return true;
     }
-    
-    private Integer parseInteger(String value) {
-        if (value == null || value.isEmpty()) {
-            return null;
+
+    /**
+     * Per-range line state. Without a preselected layout, the layout is picked
+     * from the first non-blank line.
+     */
+    private class LineHandler<T> {
+
+        private final String fileName;
+        private final Function<FixedWidthLayout, FixedWidthLayout.RecordParser<T>> parserSelector;
+        private final Consumer<T> sink;
+        private FixedWidthLayout.RecordParser<T> parser;
+        private boolean headerPending;
+        private int count;
+
+        LineHandler(String fileName, FixedWidthLayout layout,
+                    Function<FixedWidthLayout, FixedWidthLayout.RecordParser<T>> parserSelector, Consumer<T> sink) {
+            this.fileName = fileName;
+            this.parserSelector = parserSelector;
+            this.parser = layout != null ? parserSelector.apply(layout) : null;
+            this.sink = sink;
         }
-        
-        try {
-            return Integer.parseInt(value);
-        } catch (NumberFormatException e) {
-            return null;
+
+        void handle(byte[] line, int length) {
+            if (isBlank(line, length)) {
+                return;
+            }
+
+            if (parser == null) {
+                FixedWidthLayout layout = selectLayout(fileName, line, length);
+                parser = parserSelector.apply(layout);
+                headerPending = layout.isSkipHeader();
+                logger.debug("Using fixed-width layout '{}' for {}", layout.getName(), fileName);
+            }
+
+            if (headerPending) {
+                headerPending = false;
+                return;
+            }
+
+            T record = isAscii(line, length)
+                    ? parser.parse(line, length)
+                    : parser.parse(new String(line, 0, length, StandardCharsets.UTF_8));
+            if (record == null) {
+                return;
+            }
+
+            sink.accept(record);
+            count++;
         }
     }
 }
@@ -0,0 +1,171 @@
+package com.dfpt.canonical.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Finds input files that appeared since the previous scan.
+ * A directory's mtime changes whenever an entry is added, removed or renamed into
+ * it, so directories whose mtime is unchanged since they were last listed are
+ * skipped without being read. Changed directories are streamed with
+ * {@link Files#newDirectoryStream} and filtered by name, and only names missing
+ * from their previous listing are stat'ed. With {@code shard-depth} > 0, files live
+ * in hashed subdirectories (e.g. {@code input/3f/trades.csv}); the shard levels
+ * are listed on every scan, but an arrival only relists its own shard. A periodic full scan lists and stats every entry,
+ * catching files replaced in place under a name already seen.
+ */
+@Service
+public class InputDirectoryScanner {
+
+    private static final Logger logger = LoggerFactory.getLogger(InputDirectoryScanner.class);
+
+    @Value("${file.processing.scan.shard-depth:0}")
+    private int shardDepth;
+
+    @Value("${file.processing.scan.mtime-margin:2s}")
+    private Duration mtimeMargin;
+
+    @Value("${file.processing.scan.full-scan-interval:1h}")
+    private Duration fullScanInterval;
+
+    private final Map<Path, Long> directoryMtimes = new HashMap<>();
+    private final Map<Path, Set<String>> listedNames = new HashMap<>();
+    private long lastFullScan = Long.MIN_VALUE;
+
+    /**
+     * Returns candidate files as paths relative to the root, using '/' between shard
+     * directories and the file name. Scans are serialised.
+     */
+    public synchronized List<String> scan(Path root, Predicate<String> nameFilter) throws IOException {
+        long started = System.currentTimeMillis();
+        boolean full = lastFullScan == Long.MIN_VALUE || started - lastFullScan >= fullScanInterval.toMillis();
+        if (full) {
+            // Rebuilt by the scan, dropping directories that no longer exist
+            directoryMtimes.clear();
+            listedNames.clear();
+        }
+
+        ScanState state = new ScanState(root, nameFilter, started - mtimeMargin.toMillis(), full);
+        scanDirectory(root, 0, state);
+
+        if (full) {
+            lastFullScan = started;
+        }
+
+        logger.debug("{} scan of {}: {} entries, {} stat'ed, {} directories skipped, {} candidates in {} ms",
+                full ? "Full" : "Incremental", root, state.entries, state.stats, state.skippedDirectories,
+                state.candidates.size(), System.currentTimeMillis() - started);
+        return state.candidates;
+    }
+
+    private void scanDirectory(Path directory, int depth, ScanState state) throws IOException {
+        BasicFileAttributes attributes = attributes(directory);
+        state.stats++;
+        if (attributes == null || !attributes.isDirectory()) {
+            return;
+        }
+
+        // Shard levels are always listed: files arriving below them leave their mtime alone
+        if (depth < shardDepth) {
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+                for (Path entry : entries) {
+                    state.entries++;
+                    scanDirectory(entry, depth + 1, state);
+                }
+            }
+            return;
+        }
+
+        long modified = attributes.lastModifiedTime().toMillis();
+        Long previous = directoryMtimes.get(directory);
+        if (!state.full && previous != null && previous == modified) {
+            state.skippedDirectories++;
+            return;
+        }
+
+        scanFiles(directory, state);
+
+        // An mtime this recent may not yet cover entries added within the same clock tick
+        if (modified < state.settledBefore) {
+            directoryMtimes.put(directory, modified);
+        } else {
+            directoryMtimes.remove(directory);
+        }
+    }
+
+    private void scanFiles(Path directory, ScanState state) throws IOException {
+        Set<String> previousNames = state.full ? null : listedNames.get(directory);
+        Set<String> names = new HashSet<>();
+
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+            for (Path entry : entries) {
+                state.entries++;
+                String name = entry.getFileName().toString();
+                if (!state.nameFilter.test(name)) {
+                    continue;
+                }
+                names.add(name);
+                if (previousNames != null && previousNames.contains(name)) {
+                    continue;
+                }
+
+                BasicFileAttributes attributes = attributes(entry);
+                state.stats++;
+                if (attributes != null && attributes.isRegularFile()) {
+                    state.candidates.add(relativeName(state.root, entry));
+                }
+            }
+        }
+        listedNames.put(directory, names);
+    }
+
+    private static BasicFileAttributes attributes(Path path) throws IOException {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    private static String relativeName(Path root, Path file) {
+        return root.relativize(file).toString().replace(File.separatorChar, '/');
+    }
+
+    private static final class ScanState {
+
+        private final Path root;
+        private final Predicate<String> nameFilter;
+        private final long settledBefore;
+        private final boolean full;
+        private final List<String> candidates = new ArrayList<>();
+        private int entries;
+        private int stats;
+        private int skippedDirectories;
+
+        ScanState(Path root, Predicate<String> nameFilter, long settledBefore, boolean full) {
+            this.root = root;
+            this.nameFilter = nameFilter;
+            this.settledBefore = settledBefore;
+            this.full = full;
+        }
+    }
+}
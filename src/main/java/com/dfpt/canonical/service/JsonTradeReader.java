@@ -0,0 +1,231 @@
+package com.dfpt.canonical.service;
+
+import com.dfpt.canonical.dto.ExternalTradeDTO;
+import com.dfpt.canonical.model.CanonicalTrade;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Streams trades out of a JSON file one object at a time.
+ * The layout is detected from the first tokens: a top-level array, a
+ * {"trades":[...]} wrapper, a single object or JSON lines (a sequence of
+ * root-level objects). The file is read once and never held in memory.
+ * Objects are bound to {@link ExternalTradeDTO} through Jackson, or field by
+ * field onto {@link CanonicalTrade} for the fused ingest path.
+ */
+@Service
+public class JsonTradeReader {
+
+    private static final String WRAPPER_FIELD = "trades";
+
+    /** Longest first line considered when telling JSON lines from a JSON document. */
+    private static final int PROBE_BYTES = 64 * 1024;
+
+    private final ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+    private final ObjectReader tradeReader = mapper.readerFor(ExternalTradeDTO.class);
+
+    @Autowired
+    private CanonicalTradeBinder canonicalTradeBinder;
+
+    public int read(File file, Consumer<ExternalTradeDTO> sink) throws IOException {
+        return read(file, this::bindDto, sink);
+    }
+
+    public int readCanonical(File file, Consumer<CanonicalTrade> sink) throws IOException {
+        return read(file, this::bindCanonical, sink);
+    }
+
+    /**
+     * Returns true when the first non-blank line of the file is a complete trade
+     * object, i.e. the file is JSON lines rather than a pretty-printed document.
+     * Only the first {@value #PROBE_BYTES} bytes are read: a file starting with
+     * '[' is decided on its first character, and a first line longer than the
+     * probe (a single-line document) is not JSON lines.
+     */
+    boolean isJsonLines(File file) throws IOException {
+        byte[] probe;
+        try (InputStream in = new FileInputStream(file)) {
+            probe = in.readNBytes(PROBE_BYTES);
+        }
+
+        int start = 0;
+        while (start < probe.length && Character.isWhitespace(probe[start])) {
+            start++;
+        }
+        if (start == probe.length || probe[start] != '{') {
+            return false;
+        }
+        int end = start;
+        while (end < probe.length && probe[end] != '\n') {
+            end++;
+        }
+        if (end == PROBE_BYTES) {
+            return false;
+        }
+
+        String line = new String(probe, start, end - start, StandardCharsets.UTF_8).trim();
+        if (!line.endsWith("}")) {
+            return false;
+        }
+        try {
+            tradeReader.readValue(line);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Reads a sequence of root-level trade objects, e.g. a slice of a JSON lines file.
+     */
+    int readObjects(InputStream in, Consumer<ExternalTradeDTO> sink) throws IOException {
+        return readObjects(in, this::bindDto, sink);
+    }
+
+    int readCanonicalObjects(InputStream in, Consumer<CanonicalTrade> sink) throws IOException {
+        return readObjects(in, this::bindCanonical, sink);
+    }
+
+    private <T> int read(File file, ObjectBinder<T> binder, Consumer<T> sink) throws IOException {
+        if (file.length() == 0) {
+            return 0;
+        }
+
+        try (JsonParser parser = mapper.getFactory().createParser(file)) {
+            JsonToken first = parser.nextToken();
+
+            if (first == JsonToken.START_ARRAY) {
+                return readArray(parser, binder, sink);
+            }
+            if (first == JsonToken.START_OBJECT) {
+                return readObject(parser, binder, sink);
+            }
+            if (first == null) {
+                return 0;
+            }
+
+            throw new JsonParseException(parser, "Invalid JSON format in file: " + file.getName()
+                    + ". Expected JSON array, single object, wrapped array, or JSON lines.");
+        }
+    }
+
+    private <T> int readObjects(InputStream in, ObjectBinder<T> binder, Consumer<T> sink) throws IOException {
+        try (JsonParser parser = mapper.getFactory().createParser(in)) {
+            int count = 0;
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                if (token != JsonToken.START_OBJECT) {
+                    throw new JsonParseException(parser, "Expected trade object but found " + token);
+                }
+                sink.accept(binder.bind(parser));
+                count++;
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Reads trade objects until the end of the array the parser is positioned in.
+     */
+    private <T> int readArray(JsonParser parser, ObjectBinder<T> binder, Consumer<T> sink) throws IOException {
+        int count = 0;
+        JsonToken token;
+
+        while ((token = parser.nextToken()) == JsonToken.START_OBJECT) {
+            sink.accept(binder.bind(parser));
+            count++;
+        }
+
+        if (token != JsonToken.END_ARRAY) {
+            throw new JsonParseException(parser, "Expected trade object in array but found " + token);
+        }
+        return count;
+    }
+
+    /**
+     * Handles a leading object, which is either the trades wrapper or the first
+     * of one or more root-level trade objects.
+     */
+    private <T> int readObject(JsonParser parser, ObjectBinder<T> binder, Consumer<T> sink) throws IOException {
+        JsonToken token = parser.nextToken();
+
+        if (token == JsonToken.FIELD_NAME && WRAPPER_FIELD.equals(parser.currentName())) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new JsonParseException(parser, "Expected array for \"" + WRAPPER_FIELD + "\"");
+            }
+            int count = readArray(parser, binder, sink);
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                parser.nextToken();
+                parser.skipChildren();
+            }
+            return count;
+        }
+
+        // Parser is inside the first object; both binders can resume from here
+        sink.accept(binder.bind(parser));
+        int count = 1;
+
+        while ((token = parser.nextToken()) != null) {
+            if (token != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Expected trade object but found " + token);
+            }
+            sink.accept(binder.bind(parser));
+            count++;
+        }
+        return count;
+    }
+
+    private ExternalTradeDTO bindDto(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.END_OBJECT) {
+            return new ExternalTradeDTO();
+        }
+        return tradeReader.readValue(parser);
+    }
+
+    /**
+     * Binds the current object's scalar fields onto a new trade; the parser may be
+     * positioned on the object's start, one of its field names or its end.
+     */
+    private CanonicalTrade bindCanonical(JsonParser parser) throws IOException {
+        CanonicalTrade trade = new CanonicalTrade();
+        JsonToken token = parser.currentToken() == JsonToken.START_OBJECT ? parser.nextToken() : parser.currentToken();
+
+        for (; token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+            String name = parser.currentName();
+            BiConsumer<CanonicalTrade, String> fieldBinder = canonicalTradeBinder.textBinder(name);
+            if (fieldBinder == null) {
+                throw new JsonParseException(parser, "Unrecognized field \"" + name + "\"");
+            }
+
+            JsonToken value = parser.nextToken();
+            if (value == JsonToken.START_OBJECT || value == JsonToken.START_ARRAY) {
+                throw new JsonParseException(parser, "Expected scalar value for \"" + name + "\"");
+            }
+            fieldBinder.accept(trade, value == JsonToken.VALUE_NULL ? null : parser.getText());
+        }
+
+        if (token != JsonToken.END_OBJECT) {
+            throw new JsonParseException(parser, "Expected end of trade object but found " + token);
+        }
+        return trade;
+    }
+
+    @FunctionalInterface
+    private interface ObjectBinder<T> {
+        T bind(JsonParser parser) throws IOException;
+    }
+}
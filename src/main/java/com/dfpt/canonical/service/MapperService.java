@@ -6,17 +6,25 @@ import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.LocalTime;
+import java.time.Month;
+import java.time.Year;
 
 /**
  * Maps external DTOs to canonical trade entities
- * Handles date parsing in ddMMyyyyHHmmss format (e.g., 21012025143000)
+ * Handles date parsing in ddMMyyyyHHmmss format (e.g., 21012025143000) with a
+ * fixed-position digit parser; invalid dates map to null without exceptions
  */
 @Service
 public class MapperService {
 
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("ddMMyyyy");
-    private static final DateTimeFormatter DATETIME_FORMATTER = DateTimeFormatter.ofPattern("ddMMyyyyHHmmss");
+    private static final int DATE_LENGTH = 8;
+    private static final int DATETIME_LENGTH = 14;
+    private static final int CACHE_SIZE = 4096;
+
+    // DOBs and trade timestamps repeat heavily within a file
+    private final ParsedValueCache<LocalDate> dateCache = new ParsedValueCache<>(CACHE_SIZE);
+    private final ParsedValueCache<LocalDateTime> dateTimeCache = new ParsedValueCache<>(CACHE_SIZE);
 
     public CanonicalTrade mapFromJson(ExternalTradeDTO dto) {
         CanonicalTrade trade = new CanonicalTrade();
@@ -38,38 +46,104 @@ public class MapperService {
         trade.setTradeDateTime(parseDateTime(dto.getTradeDateTime()));
         trade.setDob(parseDate(dto.getDob()));
         
-        // Set metadata
+        applyMetadata(trade);
+        
+        return trade;
+    }
+    
+    /**
+     * Set ingest metadata on a trade that was bound directly by a reader
+     */
+    public void applyMetadata(CanonicalTrade trade) {
         trade.setStatus("RECEIVED");
         trade.setCreatedAt(LocalDateTime.now());
+    }
+    
+    /**
+     * Parse date string in ddMMyyyy format; returns null for invalid input
+     */
+    LocalDate parseDate(String dateStr) {
+        if (dateStr == null || dateStr.length() != DATE_LENGTH) {
+            return null;
+        }
         
-        return trade;
+        LocalDate cached = dateCache.get(dateStr);
+        if (cached != null) {
+            return cached;
+        }
+        
+        LocalDate date = toDate(dateStr);
+        if (date != null) {
+            dateCache.put(dateStr, date);
+        }
+        return date;
     }
     
-    private Date parseDate(String dateStr) {
-        if (dateStr == null || dateStr.isEmpty()) {
+    /**
+     * Parse datetime string in ddMMyyyyHHmmss format; returns null for invalid input
+     */
+    LocalDateTime parseDateTime(String dateTimeStr) {
+        if (dateTimeStr == null || dateTimeStr.length() != DATETIME_LENGTH) {
+            return null;
+        }
+        
+        LocalDateTime cached = dateTimeCache.get(dateTimeStr);
+        if (cached != null) {
+            return cached;
+        }
+        
+        LocalDate date = toDate(dateTimeStr);
+        int hour = digits(dateTimeStr, 8, 2);
+        int minute = digits(dateTimeStr, 10, 2);
+        int second = digits(dateTimeStr, 12, 2);
+        if (date == null || hour < 0 || minute < 0 || second < 0 || minute > 59 || second > 59) {
             return null;
         }
         
-        try {
-            return LocalDate.parse(dateStr, DATE_FORMAT);
-        } catch (Exception e) {
+        LocalDateTime dateTime;
+        if (hour < 24) {
+            dateTime = LocalDateTime.of(date, LocalTime.of(hour, minute, second));
+        } else if (hour == 24 && minute == 0 && second == 0) {
+            // The formatter reads 24:00:00 as midnight of the following day
+            dateTime = date.plusDays(1).atStartOfDay();
+        } else {
             return null;
         }
+        
+        dateTimeCache.put(dateTimeStr, dateTime);
+        return dateTime;
     }
     
     /**
-     * Parse datetime string in ddMMyyyyHHmmss format
+     * Reads ddMMyyyy from the start of the string. Days past the end of the month,
+     * such as 30 February, are invalid rather than moved to its last day.
      */
-    private LocalDateTime parseDateTime(String dateTimeStr) {
-        if (dateTimeStr == null || dateTimeStr.isEmpty()) {
+    private static LocalDate toDate(String value) {
+        int day = digits(value, 0, 2);
+        int month = digits(value, 2, 2);
+        int year = digits(value, 4, 4);
+        if (day < 1 || month < 1 || month > 12 || year < 1) {
             return null;
         }
-        
-        try {
-            return LocalDateTime.parse(dateTimeStr, DATETIME_FORMAT);
-        } catch (Exception e) {
+        if (day > Month.of(month).length(Year.isLeap(year))) {
             return null;
         }
+        return LocalDate.of(year, month, day);
+    }
+    
+    /**
+     * Returns the value of count ASCII digits at offset, or -1 if any is not a digit
+     */
+    private static int digits(String value, int offset, int count) {
+        int result = 0;
+        for (int i = offset; i < offset + count; i++) {
+            int digit = value.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            result = result * 10 + digit;
+        }
+        return result;
     }
     
     /**
@@ -77,7 +151,7 @@ public class MapperService {
      * I (Internal) -> 1
      * E (External) -> 0
      */
-    private Integer convertOriginatorType(String originatorType) {
+    Integer convertOriginatorType(String originatorType) {
         if (originatorType == null || originatorType.isEmpty()) {
             return null;
         }
@@ -0,0 +1,148 @@
+package com.dfpt.canonical.service;
+
+import com.dfpt.canonical.model.OutboxEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Moves events from {@code outbox_events} to the broker.
+ * Each batch is claimed, published and deleted in three steps so that no
+ * transaction, row lock or pooled connection is held while the broker is being
+ * waited on: one statement leases the oldest unclaimed events (claimed_until,
+ * FOR UPDATE SKIP LOCKED) and commits, the events are published through
+ * {@link TradeEventPublisher}, and one statement deletes them. A failed publish
+ * releases the lease so the events are retried on the next poll; if the relay
+ * dies, the lease expires and another poll takes the events over. A failure
+ * after publishing, or a publish that outlasts its lease, leads to a
+ * redelivery, so delivery is at least once. Several relays can run side by
+ * side on disjoint batches; events are then only ordered within a batch.
+ */
+@Service
+public class OutboxRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private static final String CLAIM_SQL =
+            "UPDATE outbox_events SET claimed_until = now() + make_interval(secs => ?) WHERE id IN ("
+            + "SELECT id FROM outbox_events WHERE claimed_until IS NULL OR claimed_until < now() "
+            + "ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED) "
+            + "RETURNING id, aggregate_id, event_type, payload";
+
+    private static final String RELEASE_SQL = "UPDATE outbox_events SET claimed_until = NULL WHERE id = ANY(?)";
+
+    private static final String DELETE_SQL = "DELETE FROM outbox_events WHERE id = ANY(?)";
+
+    @Value("${trade.outbox.relay.enabled:true}")
+    private boolean enabled;
+
+    @Value("${trade.outbox.relay.batch-size:500}")
+    private int batchSize;
+
+    @Value("${trade.outbox.relay.max-batches-per-poll:100}")
+    private int maxBatchesPerPoll;
+
+    @Value("${trade.outbox.relay.lease:60s}")
+    private Duration lease;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TradeEventPublisher publisher;
+
+    private boolean failing;
+
+    /**
+     * Publishes full batches until the outbox is drained or the per-poll limit
+     * is reached, so other scheduled tasks get their turn under sustained load.
+     */
+    @Scheduled(fixedDelayString = "${trade.outbox.relay.poll-interval:1000}")
+    public void relay() {
+        if (!enabled) {
+            return;
+        }
+        for (int i = 0; i < maxBatchesPerPoll; i++) {
+            int published;
+            try {
+                published = relayBatch();
+            } catch (UncheckedIOException e) {
+                if (!failing) {
+                    logger.warn("Could not publish outbox events, retrying every poll: {}", e.getCause().getMessage());
+                    failing = true;
+                }
+                return;
+            } catch (DataAccessException e) {
+                logger.error("Could not read outbox events", e);
+                return;
+            }
+
+            if (published > 0 && failing) {
+                logger.info("Publishing outbox events again");
+                failing = false;
+            }
+            if (published < batchSize) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Claims, publishes and deletes one batch; returns the number of events published.
+     */
+    int relayBatch() {
+        // Each statement commits on its own; nothing is held open during the publish
+        List<OutboxEvent> events = jdbcTemplate.query(CLAIM_SQL, (rs, rowNum) -> new OutboxEvent(
+                rs.getLong(1), rs.getObject(2, UUID.class), rs.getString(3), rs.getString(4)),
+                lease.toMillis() / 1000.0, batchSize);
+        if (events.isEmpty()) {
+            return 0;
+        }
+        // RETURNING does not keep the subquery's order
+        events.sort(Comparator.comparingLong(OutboxEvent::getId));
+        Long[] ids = new Long[events.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = events.get(i).getId();
+        }
+
+        try {
+            publisher.publish(events);
+        } catch (IOException e) {
+            release(ids);
+            throw new UncheckedIOException(e);
+        }
+
+        updateAll(DELETE_SQL, ids);
+        logger.debug("Published {} outbox events", ids.length);
+        return events.size();
+    }
+
+    /**
+     * Makes unpublished events claimable again right away; if this fails too,
+     * their lease runs out instead.
+     */
+    private void release(Long[] ids) {
+        try {
+            updateAll(RELEASE_SQL, ids);
+        } catch (DataAccessException e) {
+            logger.debug("Could not release outbox events, they are retried once their lease expires: {}",
+                    e.getMostSpecificCause().getMessage());
+        }
+    }
+
+    private void updateAll(String sql, Long[] ids) {
+        jdbcTemplate.update(sql, ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids)));
+    }
+}
@@ -0,0 +1,263 @@
+package com.dfpt.canonical.service;
+
+import com.dfpt.canonical.dto.ExternalTradeDTO;
+import com.dfpt.canonical.model.CanonicalTrade;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+
+/**
+ * Parses a single large line-oriented file (fixed-width, CSV or JSON lines) on
+ * several cores. The file is cut into newline-aligned byte ranges that are parsed
+ * on a ForkJoinPool; finished ranges are emitted strictly in file order, so
+ * downstream ordinals are the same as for a sequential parse. Only a bounded
+ * window of ranges is in flight at any time.
+ * CSV ranges assume quoted fields do not contain line breaks.
+ */
+@Service
+public class ParallelFileParser {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParallelFileParser.class);
+
+    @Value("${file.processing.parallel.enabled:true}")
+    private boolean enabled;
+
+    @Value("${file.processing.parallel.min-file-size:64MB}")
+    private DataSize minFileSize;
+
+    @Value("${file.processing.parallel.segment-size:4MB}")
+    private DataSize segmentSize;
+
+    @Value("${file.processing.parallel.parallelism:0}")
+    private int parallelism;
+
+    @Autowired
+    private FixedWidthParserService fixedWidthParserService;
+
+    @Autowired
+    private CsvTradeReader csvTradeReader;
+
+    @Autowired
+    private JsonTradeReader jsonTradeReader;
+
+    private ForkJoinPool parsePool;
+
+    @PostConstruct
+    public void init() {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        parsePool = new ForkJoinPool(threads);
+        logger.info("Parallel parse pool initialized with {} threads", threads);
+    }
+
+    @PreDestroy
+    public void cleanup() {
+        parsePool.shutdownNow();
+    }
+
+    public boolean supports(File file, String format) {
+        if (!enabled || file.length() < minFileSize.toBytes()) {
+            return false;
+        }
+
+        switch (format.toLowerCase()) {
+            case "txt":
+            case "csv":
+                return true;
+            case "json":
+                try {
+                    return jsonTradeReader.isJsonLines(file);
+                } catch (IOException e) {
+                    return false;
+                }
+            default:
+                return false;
+        }
+    }
+
+    public int parse(File file, String format, Consumer<ExternalTradeDTO> sink) throws Exception {
+        switch (format.toLowerCase()) {
+            case "txt":
+                FixedWidthLayout layout = fixedWidthParserService.layoutFor(file);
+                return parseRanges(file, 0, (from, to, out) ->
+                        fixedWidthParserService.parseFixedWidthRange(file, from, to, layout, out), sink);
+
+            case "csv":
+                String[] header = csvTradeReader.readHeader(file);
+                if (header == null) {
+                    return 0;
+                }
+                return parseRanges(file, nextLineStart(file, 0), (from, to, out) -> csvTradeReader.readRows(
+                        new InputStreamReader(openRange(file, from, to)), header, file.getName(), out), sink);
+
+            case "json":
+                return parseRanges(file, 0, (from, to, out) ->
+                        jsonTradeReader.readObjects(openRange(file, from, to), out), sink);
+
+            default:
+                throw new IllegalArgumentException("Parallel parsing not supported for format: " + format);
+        }
+    }
+
+    /**
+     * Same as {@link #parse} but binds records directly onto {@link CanonicalTrade}.
+     */
+    public int parseCanonical(File file, String format, Consumer<CanonicalTrade> sink) throws Exception {
+        switch (format.toLowerCase()) {
+            case "txt":
+                FixedWidthLayout layout = fixedWidthParserService.layoutFor(file);
+                return parseRanges(file, 0, (from, to, out) ->
+                        fixedWidthParserService.parseCanonicalRange(file, from, to, layout, out), sink);
+
+            case "csv":
+                String[] header = csvTradeReader.readHeader(file);
+                if (header == null) {
+                    return 0;
+                }
+                return parseRanges(file, nextLineStart(file, 0), (from, to, out) -> csvTradeReader.readCanonicalRows(
+                        new InputStreamReader(openRange(file, from, to)), header, file.getName(), out), sink);
+
+            case "json":
+                return parseRanges(file, 0, (from, to, out) ->
+                        jsonTradeReader.readCanonicalObjects(openRange(file, from, to), out), sink);
+
+            default:
+                throw new IllegalArgumentException("Parallel parsing not supported for format: " + format);
+        }
+    }
+
+    private <T> int parseRanges(File file, long start, RangeParser<T> rangeParser, Consumer<T> sink)
+            throws Exception {
+        List<long[]> ranges = split(file, start);
+        logger.info("Parsing {} in {} ranges on {} threads", file.getName(), ranges.size(), parsePool.getParallelism());
+        return parseInOrder(ranges, rangeParser, sink);
+    }
+
+    private <T> int parseInOrder(List<long[]> ranges, RangeParser<T> rangeParser, Consumer<T> sink)
+            throws Exception {
+        Deque<ForkJoinTask<List<T>>> inFlight = new ArrayDeque<>();
+        int window = parsePool.getParallelism() + 1;
+        int next = 0;
+        int count = 0;
+
+        try {
+            while (next < ranges.size() || !inFlight.isEmpty()) {
+                while (next < ranges.size() && inFlight.size() < window) {
+                    long[] range = ranges.get(next++);
+                    inFlight.add(parsePool.submit(() -> {
+                        List<T> records = new ArrayList<>();
+                        rangeParser.parse(range[0], range[1], records::add);
+                        return records;
+                    }));
+                }
+
+                List<T> records = inFlight.poll().get();
+                records.forEach(sink);
+                count += records.size();
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        } finally {
+            for (ForkJoinTask<List<T>> task : inFlight) {
+                task.cancel(true);
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Cuts [start, size) into ranges of roughly the segment size, each ending just
+     * after a line feed.
+     */
+    private List<long[]> split(File file, long start) throws IOException {
+        List<long[]> ranges = new ArrayList<>();
+        long size = file.length();
+        long segment = Math.min(segmentSize.toBytes(), Integer.MAX_VALUE);
+        long position = start;
+
+        while (position < size) {
+            long end = position + segment >= size ? size : nextLineStart(file, position + segment);
+            ranges.add(new long[] {position, end});
+            position = end;
+        }
+        return ranges;
+    }
+
+    private long nextLineStart(File file, long from) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(8192);
+            long position = from;
+            int read;
+
+            while ((read = channel.read(buffer, position)) > 0) {
+                for (int i = 0; i < read; i++) {
+                    if (buffer.get(i) == '\n') {
+                        return position + i + 1;
+                    }
+                }
+                position += read;
+                buffer.clear();
+            }
+            return channel.size();
+        }
+    }
+
+    private static InputStream openRange(File file, long from, long to) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return new ByteBufferInputStream(channel.map(FileChannel.MapMode.READ_ONLY, from, to - from));
+        }
+    }
+
+    @FunctionalInterface
+    private interface RangeParser<T> {
+        void parse(long from, long to, Consumer<T> sink) throws IOException;
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+    }
+}
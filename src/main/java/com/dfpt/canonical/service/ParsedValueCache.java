@@ -0,0 +1,46 @@
+package com.dfpt.canonical.service;
+
+/**
+ * Bounded, lock-free cache from raw field text to its parsed value.
+ * Direct-mapped on the key's hash: a colliding key simply replaces the old
+ * entry, so memory stays fixed however many distinct values a file holds.
+ * Entries are immutable, which makes racy reads and writes safe.
+ */
+class ParsedValueCache<V> {
+
+    private final Entry<V>[] entries;
+    private final int mask;
+
+    ParsedValueCache(int size) {
+        int capacity = Integer.highestOneBit(Math.max(size, 2) - 1) << 1;
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Entry<V>[] table = new Entry[capacity];
+        this.entries = table;
+        this.mask = capacity - 1;
+    }
+
+    V get(String key) {
+        Entry<V> entry = entries[index(key)];
+        return entry != null && entry.key.equals(key) ? entry.value : null;
+    }
+
+    void put(String key, V value) {
+        entries[index(key)] = new Entry<>(key, value);
+    }
+
+    private int index(String key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private static final class Entry<V> {
+
+        private final String key;
+        private final V value;
+
+        Entry(String key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.dfpt.canonical.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Durable record of ingested files, stored in {@code processed_files} with one
+ * row per file name and content hash.
+ * Rows younger than the retention period are loaded at startup into an index by
+ * file name (with size and mtime, so unchanged files are recognised without
+ * reading them) and by content hash (so renamed copies are recognised).
+ * Every outcome is stored with its status. Final outcomes (SUCCESS,
+ * PARTIAL_SUCCESS, FAILED, DUPLICATE) are indexed by name, so the unchanged file
+ * is not hashed or ingested again; only completed ingests are indexed by content
+ * hash. Files that ended in ERROR (a transient failure, e.g. the database was
+ * unreachable) are not indexed and are retried by a later scan or after a restart.
+ * Entries older than the retention period are evicted from both.
+ */
+@Service
+public class ProcessedFileLedger {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProcessedFileLedger.class);
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO processed_files (content_hash, file_name, file_size, modified_millis, status, processed_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?) ON CONFLICT (file_name, content_hash) DO UPDATE SET "
+            + "file_size = EXCLUDED.file_size, modified_millis = EXCLUDED.modified_millis, "
+            + "status = EXCLUDED.status, processed_at = EXCLUDED.processed_at";
+
+    private static final int HASH_BUFFER = 64 * 1024;
+
+    private static final Set<String> COMPLETED = Set.of("SUCCESS", "PARTIAL_SUCCESS");
+
+    private static final String RETRIED = "ERROR";
+
+    @Value("${file.processing.ledger.retention:30d}")
+    private Duration retention;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final Map<String, Entry> byName = new HashMap<>();
+    private final Map<ContentHash, Entry> byHash = new HashMap<>();
+
+    @PostConstruct
+    public void init() {
+        try {
+            jdbcTemplate.query(
+                    "SELECT content_hash, file_name, file_size, modified_millis, status, processed_at "
+                    + "FROM processed_files WHERE processed_at >= ? AND status IS NOT NULL AND status <> 'ERROR' "
+                    + "ORDER BY processed_at",
+                    rs -> {
+                        index(new Entry(rs.getString("file_name"), rs.getLong("file_size"),
+                                rs.getLong("modified_millis"), ContentHash.of(rs.getString("content_hash")),
+                                rs.getTimestamp("processed_at").toLocalDateTime()),
+                                COMPLETED.contains(rs.getString("status")));
+                    },
+                    Timestamp.valueOf(cutoff()));
+            logger.info("Loaded {} processed files from ledger", byName.size());
+        } catch (DataAccessException e) {
+            logger.error("Could not load processed file ledger; starting empty", e);
+        }
+    }
+
+    /**
+     * True when a file of this name, size and mtime has already been ingested.
+     */
+    public synchronized boolean isProcessed(String fileName, long size, long modifiedMillis) {
+        Entry entry = byName.get(fileName);
+        return entry != null && entry.size == size && entry.modifiedMillis == modifiedMillis;
+    }
+
+    /**
+     * Returns the name under which the same content was ingested, or null.
+     */
+    public synchronized String findDuplicate(String contentHash) {
+        Entry entry = byHash.get(ContentHash.of(contentHash));
+        return entry != null ? entry.fileName : null;
+    }
+
+    public void record(String fileName, long size, long modifiedMillis, String contentHash, String status) {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            jdbcTemplate.update(UPSERT_SQL, contentHash, fileName, size, modifiedMillis, status, Timestamp.valueOf(now));
+        } catch (DataAccessException e) {
+            // Not indexed either, so memory never claims more than the table
+            logger.error("Could not record {} in processed file ledger", fileName, e);
+            return;
+        }
+        if (status == null || RETRIED.equals(status)) {
+            return;
+        }
+
+        synchronized (this) {
+            index(new Entry(fileName, size, modifiedMillis, ContentHash.of(contentHash), now),
+                    COMPLETED.contains(status));
+        }
+    }
+
+    /**
+     * SHA-256 of the file contents, read as a stream.
+     */
+    public String hash(File file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        try (InputStream in = new FileInputStream(file)) {
+            byte[] buffer = new byte[HASH_BUFFER];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    @Scheduled(fixedDelayString = "${file.processing.ledger.eviction-interval:3600000}")
+    public void evictExpired() {
+        LocalDateTime cutoff = cutoff();
+        int evicted = 0;
+
+        synchronized (this) {
+            evicted = evict(byName, cutoff);
+            evict(byHash, cutoff);
+        }
+
+        try {
+            jdbcTemplate.update("DELETE FROM processed_files WHERE processed_at < ?", Timestamp.valueOf(cutoff));
+        } catch (DataAccessException e) {
+            logger.warn("Could not evict expired ledger rows: {}", e.getMostSpecificCause().getMessage());
+        }
+        if (evicted > 0) {
+            logger.info("Evicted {} processed files older than {}", evicted, retention);
+        }
+    }
+
+    public synchronized int size() {
+        return byName.size();
+    }
+
+    public void clear() {
+        jdbcTemplate.update("DELETE FROM processed_files");
+        synchronized (this) {
+            byName.clear();
+            byHash.clear();
+        }
+    }
+
+    /**
+     * The name index keeps the latest entry per name; the hash index keeps the
+     * first name the content was ingested under.
+     */
+    private void index(Entry entry, boolean ingested) {
+        byName.put(entry.fileName, entry);
+        if (ingested) {
+            byHash.putIfAbsent(entry.hash, entry);
+        }
+    }
+
+    private static int evict(Map<?, Entry> index, LocalDateTime cutoff) {
+        int evicted = 0;
+        Iterator<Entry> entries = index.values().iterator();
+        while (entries.hasNext()) {
+            if (entries.next().processedAt.isBefore(cutoff)) {
+                entries.remove();
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    private LocalDateTime cutoff() {
+        return LocalDateTime.now().minus(retention);
+    }
+
+    private static final class Entry {
+
+        private final String fileName;
+        private final long size;
+        private final long modifiedMillis;
+        private final ContentHash hash;
+        private final LocalDateTime processedAt;
+
+        Entry(String fileName, long size, long modifiedMillis, ContentHash hash, LocalDateTime processedAt) {
+            this.fileName = fileName;
+            this.size = size;
+            this.modifiedMillis = modifiedMillis;
+            this.hash = hash;
+            this.processedAt = processedAt;
+        }
+    }
+
+    /**
+     * First 128 bits of the SHA-256, enough to tell files apart in memory.
+     */
+    private static final class ContentHash {
+
+        private final long high;
+        private final long low;
+
+        private ContentHash(long high, long low) {
+            this.high = high;
+            this.low = low;
+        }
+
+        static ContentHash of(String hex) {
+            return new ContentHash(Long.parseUnsignedLong(hex.substring(0, 16), 16),
+                    Long.parseUnsignedLong(hex.substring(16, 32), 16));
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof ContentHash)) {
+                return false;
+            }
+            ContentHash that = (ContentHash) other;
+            return high == that.high && low == that.low;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(high);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.dfpt.canonical.service;
+
+import com.dfpt.canonical.model.CanonicalTrade;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Streams every rejected record of one file to an NDJSON report, one compact
+ * object per line, so full error detail never accumulates in memory.
+ * The report is only created once the first reject arrives; a report left by an
+ * earlier run of the same file is removed up front. Write failures disable the
+ * report rather than failing the ingest.
+ */
+class RejectReport implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(RejectReport.class);
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    static final String SUFFIX = ".rejects.ndjson";
+
+    private final Path path;
+    private JsonGenerator generator;
+    private boolean failed;
+    private long lines;
+
+    RejectReport(Path inputFile) {
+        this.path = inputFile.resolveSibling(inputFile.getFileName() + SUFFIX);
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warn("Could not remove old reject report {}: {}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the report path, or null if nothing has been written.
+     */
+    Path getPath() {
+        return lines > 0 ? path : null;
+    }
+
+    long getLines() {
+        return lines;
+    }
+
+    void invalid(CanonicalTrade trade, TradeViolation violation) {
+        write(null, trade.getTransactionId(), violation.getCode().name(), violation.getField(), null);
+    }
+
+    void rejected(int ordinal, String code, String message) {
+        write(ordinal, null, code, null, message);
+    }
+
+    void failed(String code, String message) {
+        write(null, null, code, null, message);
+    }
+
+    @Override
+    public void close() {
+        if (generator == null) {
+            return;
+        }
+        try {
+            generator.close();
+        } catch (IOException e) {
+            logger.warn("Error closing reject report {}: {}", path, e.getMessage());
+        }
+        generator = null;
+    }
+
+    private void write(Integer record, String transactionId, String code, String field, String message) {
+        if (failed) {
+            return;
+        }
+        try {
+            if (generator == null) {
+                BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+                generator = JSON.createGenerator(writer);
+                generator.setRootValueSeparator(null);
+            }
+            generator.writeStartObject();
+            if (record != null) {
+                generator.writeNumberField("record", record);
+            }
+            if (transactionId != null) {
+                generator.writeStringField("transactionId", transactionId);
+            }
+            generator.writeStringField("code", code);
+            if (field != null) {
+                generator.writeStringField("field", field);
+            }
+            if (message != null) {
+                generator.writeStringField("message", message);
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+            lines++;
+        } catch (IOException e) {
+            failed = true;
+            logger.warn("Reject report {} disabled after write failure: {}", path, e.getMessage());
+            close();
+        }
+    }
+}
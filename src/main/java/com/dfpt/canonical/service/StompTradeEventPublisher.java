@@ -0,0 +1,264 @@
+package com.dfpt.canonical.service;
+
+import com.dfpt.canonical.model.OutboxEvent;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Publishes outbox events to ActiveMQ over its STOMP 1.2 connector, one
+ * persistent message per event on a single long-lived connection.
+ * A batch is pipelined: every SEND frame goes out in one write and the
+ * receipts are collected afterwards, so a batch costs one round trip rather
+ * than one per message. Each message carries event-id, event-type and
+ * aggregate-id headers for deduplication by consumers. On any error the
+ * connection is dropped and re-established with the next batch.
+ * The frame encoding and header escaping are written here, not taken from a
+ * STOMP client library.
+ */
+@Component
+public class StompTradeEventPublisher implements TradeEventPublisher {
+
+    private static final Logger logger = LoggerFactory.getLogger(StompTradeEventPublisher.class);
+
+    @Value("${trade.outbox.broker.host:localhost}")
+    private String host;
+
+    @Value("${trade.outbox.broker.port:61613}")
+    private int port;
+
+    @Value("${trade.outbox.broker.login:admin}")
+    private String login;
+
+    @Value("${trade.outbox.broker.passcode:admin}")
+    private String passcode;
+
+    @Value("${trade.outbox.broker.destination:/queue/canonical.trades}")
+    private String destination;
+
+    @Value("${trade.outbox.broker.receipt-timeout:5s}")
+    private Duration receiptTimeout;
+
+    private Socket socket;
+    private OutputStream out;
+    private InputStream in;
+    private long batchNumber;
+
+    @Override
+    public synchronized void publish(List<OutboxEvent> events) throws IOException {
+        if (events.isEmpty()) {
+            return;
+        }
+        try {
+            if (socket == null) {
+                connect();
+            }
+
+            String prefix = ++batchNumber + "-";
+            BitSet pending = new BitSet(events.size());
+            pending.set(0, events.size());
+            for (int i = 0; i < events.size(); i++) {
+                writeSend(events.get(i), prefix + i);
+                // Take receipts that have arrived, so neither side's socket buffer fills up
+                while (in.available() > 0) {
+                    acknowledge(readFrame(), prefix, pending);
+                }
+            }
+            out.flush();
+            while (!pending.isEmpty()) {
+                acknowledge(readFrame(), prefix, pending);
+            }
+        } catch (IOException | RuntimeException e) {
+            disconnect();
+            throw e;
+        }
+    }
+
+    private static void acknowledge(Frame frame, String prefix, BitSet pending) throws IOException {
+        if ("ERROR".equals(frame.command)) {
+            throw new IOException("Broker rejected message: " + frame.headers.get("message")
+                    + (frame.body.isEmpty() ? "" : " - " + frame.body));
+        }
+        String receiptId = frame.headers.get("receipt-id");
+        if (!"RECEIPT".equals(frame.command) || receiptId == null || !receiptId.startsWith(prefix)) {
+            throw new IOException("Unexpected " + frame.command + " frame from broker");
+        }
+        pending.clear(Integer.parseInt(receiptId.substring(prefix.length())));
+    }
+
+    @PreDestroy
+    public synchronized void disconnect() {
+        if (socket == null) {
+            return;
+        }
+        try {
+            socket.close();
+        } catch (IOException e) {
+            logger.debug("Error closing broker connection: {}", e.getMessage());
+        }
+        socket = null;
+        out = null;
+        in = null;
+    }
+
+    private void connect() throws IOException {
+        int timeout = (int) receiptTimeout.toMillis();
+        socket = createSocket();
+        socket.connect(new InetSocketAddress(host, port), timeout);
+        socket.setSoTimeout(timeout);
+        socket.setTcpNoDelay(true);
+        out = new BufferedOutputStream(socket.getOutputStream(), 64 * 1024);
+        in = new BufferedInputStream(socket.getInputStream(), 16 * 1024);
+
+        // CONNECT headers are sent unescaped (STOMP 1.2)
+        write("CONNECT\naccept-version:1.2\nhost:" + host + "\nlogin:" + login + "\npasscode:" + passcode
+                + "\nheart-beat:0,0\n\n");
+        out.write(0);
+        out.flush();
+
+        Frame frame = readFrame();
+        if (!"CONNECTED".equals(frame.command)) {
+            throw new IOException("Broker refused connection: " + frame.headers.get("message"));
+        }
+        logger.info("Connected to broker {}:{} (STOMP {})", host, port, frame.headers.get("version"));
+    }
+
+    /**
+     * Unconnected socket for the next connection; overridden in tests.
+     */
+    Socket createSocket() {
+        return new Socket();
+    }
+
+    private void writeSend(OutboxEvent event, String receipt) throws IOException {
+        byte[] body = event.getPayload().getBytes(StandardCharsets.UTF_8);
+        write("SEND\ndestination:" + escape(destination)
+                + "\ncontent-type:application/json;charset=utf-8\ncontent-length:" + body.length
+                + "\npersistent:true\nevent-id:" + event.getId()
+                + "\nevent-type:" + escape(event.getEventType())
+                + "\naggregate-id:" + event.getAggregateId()
+                + "\nreceipt:" + receipt + "\n\n");
+        out.write(body);
+        out.write(0);
+    }
+
+    private void write(String text) throws IOException {
+        out.write(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Frame readFrame() throws IOException {
+        String command;
+        do {
+            // Empty lines between frames are heart-beats
+            command = readLine();
+        } while (command.isEmpty());
+
+        Map<String, String> headers = new HashMap<>();
+        for (String line = readLine(); !line.isEmpty(); line = readLine()) {
+            int colon = line.indexOf(':');
+            if (colon > 0) {
+                // Repeated headers: the first one wins
+                headers.putIfAbsent(unescape(line.substring(0, colon)), unescape(line.substring(colon + 1)));
+            }
+        }
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        String contentLength = headers.get("content-length");
+        if (contentLength != null) {
+            body.write(in.readNBytes(Integer.parseInt(contentLength)));
+            if (read() != 0) {
+                throw new IOException("Malformed " + command + " frame from broker");
+            }
+        } else {
+            for (int b = read(); b != 0; b = read()) {
+                body.write(b);
+            }
+        }
+        return new Frame(command, headers, body.toString(StandardCharsets.UTF_8));
+    }
+
+    private String readLine() throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(64);
+        for (int b = read(); b != '\n'; b = read()) {
+            line.write(b);
+        }
+        String text = line.toString(StandardCharsets.UTF_8);
+        return text.endsWith("\r") ? text.substring(0, text.length() - 1) : text;
+    }
+
+    private int read() throws IOException {
+        int b = in.read();
+        if (b < 0) {
+            throw new EOFException("Broker closed the connection");
+        }
+        return b;
+    }
+
+    static String escape(String value) {
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> escaped.append("\\\\");
+                case '\n' -> escaped.append("\\n");
+                case '\r' -> escaped.append("\\r");
+                case ':' -> escaped.append("\\c");
+                default -> escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    static String unescape(String value) {
+        if (value.indexOf('\\') < 0) {
+            return value;
+        }
+        StringBuilder unescaped = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                switch (next) {
+                    case 'n' -> unescaped.append('\n');
+                    case 'r' -> unescaped.append('\r');
+                    case 'c' -> unescaped.append(':');
+                    default -> unescaped.append(next);
+                }
+            } else {
+                unescaped.append(c);
+            }
+        }
+        return unescaped.toString();
+    }
+
+    private static final class Frame {
+
+        private final String command;
+        private final Map<String, String> headers;
+        private final String body;
+
+        Frame(String command, Map<String, String> headers, String body) {
+            this.command = command;
+            this.headers = headers;
+            this.body = body;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.dfpt.canonical.service;
+
+import com.dfpt.canonical.model.CanonicalTrade;
+import com.dfpt.canonical.model.UuidV7;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Persists canonical trades in chunks using JDBC batch inserts.
+ * Each chunk is written in a single transaction; if the batch fails the chunk
+ * is replayed record by record so only the offending trades are rejected.
+ * Trades whose transactionId already exists for the same trade time (the unique
+ * key of the partitioned table) are skipped by ON CONFLICT and reported as
+ * duplicates. Rewritten batches (reWriteBatchedInserts) report no per-row counts,
+ * so the rows the transaction really inserted are read back by ID range and
+ * xmin. The outbox events of the inserted trades are written in the same
+ * transaction (see {@link TradeOutbox}).
+ */
+@Service
+public class TradeBatchWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(TradeBatchWriter.class);
+
+    private static final String INSERT_SQL =
+            "INSERT INTO canonical_trades (id, status, created_at, originator_type, firm_number, fund_number, "
+            + "transaction_type, transaction_id, trade_datetime, dollar_amount, client_account_no, client_name, "
+            + "ssn, dob, share_quantity) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) "
+            + "ON CONFLICT (transaction_id, trade_datetime) DO NOTHING";
+
+    private static final String INSERTED_SQL =
+            "SELECT id FROM canonical_trades WHERE id BETWEEN ? AND ? AND xmin = pg_current_xact_id()::xid";
+
+    @Value("${trade.persistence.chunk-size:1000}")
+    private int chunkSize;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private TradeLookupCache lookupCache;
+
+    @Autowired
+    private TradeOutbox outbox;
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public ChunkResult writeChunk(List<CanonicalTrade> chunk) {
+        ChunkResult chunkResult = new ChunkResult();
+        if (chunk.isEmpty()) {
+            return chunkResult;
+        }
+
+        for (CanonicalTrade trade : chunk) {
+            if (trade.getId() == null) {
+                trade.setId(UuidV7.next());
+            }
+        }
+
+        try {
+            Set<UUID> inserted = transactionTemplate.execute(status -> {
+                jdbcTemplate.batchUpdate(INSERT_SQL, chunk, chunk.size(), this::bind);
+                outbox.append(chunk);
+                return insertedIds(chunk);
+            });
+            for (CanonicalTrade trade : chunk) {
+                if (inserted != null && inserted.contains(trade.getId())) {
+                    chunkResult.saved.add(trade);
+                } else {
+                    chunkResult.duplicates.add(trade);
+                }
+            }
+        } catch (DataAccessException batchException) {
+            logger.warn("Batch insert of {} trades failed, retrying individually: {}",
+                    chunk.size(), batchException.getMostSpecificCause().getMessage());
+
+            for (CanonicalTrade trade : chunk) {
+                try {
+                    Integer inserted = transactionTemplate.execute(status -> {
+                        int rows = jdbcTemplate.update(INSERT_SQL, ps -> bind(ps, trade));
+                        outbox.append(List.of(trade));
+                        return rows;
+                    });
+                    if (inserted != null && inserted == 0) {
+                        chunkResult.duplicates.add(trade);
+                    } else {
+                        chunkResult.saved.add(trade);
+                    }
+                } catch (DataAccessException recordException) {
+                    chunkResult.errors.add("Persistence error: " + trade.getTransactionId()
+                            + " - " + recordException.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+
+        lookupCache.invalidate(chunkResult.saved);
+        return chunkResult;
+    }
+
+    /**
+     * IDs of the chunk's trades inserted by the current transaction.
+     */
+    private Set<UUID> insertedIds(List<CanonicalTrade> chunk) {
+        TradeOutbox.IdRange range = TradeOutbox.IdRange.of(chunk);
+        Set<UUID> inserted = new HashSet<>(chunk.size() * 4 / 3 + 1);
+        jdbcTemplate.query(INSERTED_SQL, rs -> {
+            inserted.add(rs.getObject(1, UUID.class));
+        }, range.getMin(), range.getMax());
+        return inserted;
+    }
+
+    private void bind(PreparedStatement ps, CanonicalTrade trade) throws SQLException {
+        ps.setObject(1, trade.getId());
+        ps.setString(2, trade.getStatus());
+        ps.setObject(3, trade.getCreatedAt(), Types.TIMESTAMP);
+        ps.setObject(4, trade.getOriginatorType(), Types.INTEGER);
+        ps.setObject(5, trade.getFirmNumber(), Types.INTEGER);
+        ps.setObject(6, trade.getFundNumber(), Types.INTEGER);
+        ps.setString(7, trade.getTransactionType());
+        ps.setString(8, trade.getTransactionId());
+        ps.setObject(9, trade.getTradeDateTime(), Types.TIMESTAMP);
+        ps.setBigDecimal(10, trade.getDollarAmount());
+        ps.setObject(11, trade.getClientAccountNo(), Types.INTEGER);
+        ps.setString(12, trade.getClientName());
+        ps.setString(13, trade.getSsn());
+        ps.setObject(14, trade.getDob(), Types.DATE);
+        ps.setBigDecimal(15, trade.getShareQuantity());
+    }
+
+    public static class ChunkResult {
+
+        private final List<CanonicalTrade> saved = new ArrayList<>();
+        private final List<String> errors = new ArrayList<>();
+        private final List<CanonicalTrade> duplicates = new ArrayList<>();
+
+        public List<CanonicalTrade> getSaved() {
+            return saved;
+        }
+
+        public List<CanonicalTrade> getDuplicates() {
+            return duplicates;
+        }
+
+        public List<String> getErrors() {
+            return errors;
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.dfpt.canonical.service;
+
+import com.dfpt.canonical.model.CanonicalTrade;
+import com.dfpt.canonical.model.UuidV7;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Bulk-loads canonical trades with PostgreSQL COPY ... FROM STDIN (text format).
+ * Rows are encoded as they arrive and streamed to the server in small buffers,
+ * so nothing is accumulated per file. The load runs in one transaction that also
+ * writes the outbox events of the loaded trades; it may span several COPY
+ * statements, so the connection can be queried between them.
+ */
+@Service
+public class TradeCopyLoader {
+
+    private static final String COPY_SQL =
+            "COPY canonical_trades (id, status, created_at, originator_type, firm_number, fund_number, "
+            + "transaction_type, transaction_id, trade_datetime, dollar_amount, client_account_no, client_name, "
+            + "ssn, dob, share_quantity) FROM STDIN WITH (FORMAT text)";
+
+    private static final int FLUSH_THRESHOLD = 64 * 1024;
+
+    @Value("${trade.persistence.copy.enabled:false}")
+    private boolean enabled;
+
+    @Value("${trade.persistence.copy.threshold:100000}")
+    private int threshold;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private TradeLookupCache lookupCache;
+
+    @Autowired
+    private TradeOutbox outbox;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    public CopySession open() throws SQLException {
+        Connection connection = dataSource.getConnection();
+        try {
+            connection.setAutoCommit(false);
+            CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+            return new CopySession(connection, copyManager, lookupCache, outbox);
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    /**
+     * An open COPY stream on a dedicated connection. Rows become visible when
+     * {@link #finish()} commits; closing an unfinished session rolls the load back.
+     */
+    public static class CopySession implements AutoCloseable {
+
+        private final Connection connection;
+        private final CopyManager copyManager;
+        private final JdbcTemplate queries;
+        private final TradeLookupCache lookupCache;
+        private final TradeOutbox outbox;
+        private final TradeOutbox.IdRange ids = new TradeOutbox.IdRange();
+        private final StringBuilder buffer = new StringBuilder(FLUSH_THRESHOLD + 1024);
+        private CopyIn copyIn;
+        private long rowCount;
+        private boolean committed;
+
+        private CopySession(Connection connection, CopyManager copyManager, TradeLookupCache lookupCache,
+                            TradeOutbox outbox) {
+            this.connection = connection;
+            this.copyManager = copyManager;
+            this.queries = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+            this.lookupCache = lookupCache;
+            this.outbox = outbox;
+        }
+
+        public void write(CanonicalTrade trade) throws SQLException {
+            if (copyIn == null) {
+                copyIn = copyManager.copyIn(COPY_SQL);
+            }
+            if (trade.getId() == null) {
+                trade.setId(UuidV7.next());
+            }
+            ids.add(trade.getId());
+
+            appendField(trade.getId()).append('\t');
+            appendField(trade.getStatus()).append('\t');
+            appendField(trade.getCreatedAt()).append('\t');
+            appendField(trade.getOriginatorType()).append('\t');
+            appendField(trade.getFirmNumber()).append('\t');
+            appendField(trade.getFundNumber()).append('\t');
+            appendField(trade.getTransactionType()).append('\t');
+            appendField(trade.getTransactionId()).append('\t');
+            appendField(trade.getTradeDateTime()).append('\t');
+            appendField(trade.getDollarAmount() != null ? trade.getDollarAmount().toPlainString() : null).append('\t');
+            appendField(trade.getClientAccountNo()).append('\t');
+            appendField(trade.getClientName()).append('\t');
+            appendField(trade.getSsn()).append('\t');
+            appendField(trade.getDob()).append('\t');
+            appendField(trade.getShareQuantity() != null ? trade.getShareQuantity().toPlainString() : null).append('\n');
+            rowCount++;
+
+            if (buffer.length() >= FLUSH_THRESHOLD) {
+                flush();
+            }
+        }
+
+        /**
+         * Template on the load's connection whose queries see the rows streamed so
+         * far. Ends the running COPY statement first; the next write starts a new
+         * one in the same transaction.
+         */
+        public JdbcTemplate queries() {
+            try {
+                endCopy();
+            } catch (SQLException e) {
+                throw new UncategorizedSQLException("End COPY", COPY_SQL, e);
+            }
+            return queries;
+        }
+
+        public long finish() throws SQLException {
+            endCopy();
+            outbox.append(connection, ids);
+            connection.commit();
+            committed = true;
+            // IDs are not kept for a bulk load, so drop every cached lookup
+            lookupCache.invalidateAll();
+            return rowCount;
+        }
+
+        public long getRowCount() {
+            return rowCount;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            try {
+                if (copyIn != null && copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+                if (!committed) {
+                    connection.rollback();
+                }
+            } finally {
+                connection.close();
+            }
+        }
+
+        private void endCopy() throws SQLException {
+            flush();
+            if (copyIn != null) {
+                copyIn.endCopy();
+                copyIn = null;
+            }
+        }
+
+        private void flush() throws SQLException {
+            if (buffer.length() == 0) {
+                return;
+            }
+            byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+            copyIn.writeToCopy(bytes, 0, bytes.length);
+            buffer.setLength(0);
+        }
+
+        private StringBuilder appendField(Object value) {
+            if (value == null) {
+                return buffer.append("\\N");
+            }
+
+            String text = value.toString();
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                switch (c) {
+                    case '\\' -> buffer.append("\\\\");
+                    case '\t' -> buffer.append("\\t");
+                    case '\n' -> buffer.append("\\n");
+                    case '\r' -> buffer.append("\\r");
+                    default -> buffer.append(c);
+                }
+            }
+            return buffer;
+        }
+    }
+}
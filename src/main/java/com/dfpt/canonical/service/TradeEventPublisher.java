@@ -0,0 +1,19 @@
+package com.dfpt.canonical.service;
+
+import com.dfpt.canonical.model.OutboxEvent;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Sends outbox events to the message broker for {@link OutboxRelay}.
+ */
+public interface TradeEventPublisher {
+
+    /**
+     * Publishes the events in order and returns once the broker has accepted all
+     * of them; throws if any may not have been accepted. Events may be delivered
+     * more than once if a batch is retried.
+     */
+    void publish(List<OutboxEvent> events) throws IOException;
+}
@@ -0,0 +1,210 @@
+package com.dfpt.canonical.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * Streams canonical trades of a trade-time range to an output stream as NDJSON
+ * or CSV. Rows come from a server-side cursor (a fetch size inside a read-only
+ * transaction) and are written as they arrive, so memory use does not depend on
+ * the number of rows. The first row is flushed immediately.
+ */
+@Service
+public class TradeExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TradeExportService.class);
+
+    private static final String[] COLUMNS = {
+        "id", "transactionId", "transactionType", "tradeDateTime", "originatorType", "firmNumber",
+        "fundNumber", "dollarAmount", "shareQuantity", "clientAccountNo", "status", "createdAt"
+    };
+
+    private static final String EXPORT_SQL =
+            "SELECT id, transaction_id, transaction_type, trade_datetime, originator_type, firm_number, "
+            + "fund_number, dollar_amount, share_quantity, client_account_no, status, created_at "
+            + "FROM canonical_trades WHERE trade_datetime >= ? AND trade_datetime < ? "
+            + "ORDER BY trade_datetime, id";
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    public enum Format {
+        NDJSON,
+        CSV
+    }
+
+    @Value("${trade.export.fetch-size:5000}")
+    private int fetchSize;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate readOnlyTransaction;
+
+    @PostConstruct
+    public void init() {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Writes the trades with trade time in [from, to), ordered by trade time, and
+     * returns the number of rows written. The stream is flushed but not closed.
+     */
+    public long export(LocalDateTime from, LocalDateTime to, Format format, OutputStream out) throws IOException {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+        long started = System.currentTimeMillis();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        RowWriter rows = format == Format.CSV ? new CsvRowWriter(writer) : new NdjsonRowWriter(writer);
+        long[] count = new long[1];
+
+        try {
+            // PostgreSQL only streams with a fetch size inside a transaction
+            readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(EXPORT_SQL);
+                ps.setFetchSize(fetchSize);
+                ps.setTimestamp(1, Timestamp.valueOf(from));
+                ps.setTimestamp(2, Timestamp.valueOf(to));
+                return ps;
+            }, rs -> {
+                try {
+                    rows.write(rs);
+                    if (count[0]++ == 0) {
+                        writer.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        } catch (UncheckedIOException e) {
+            // Usually the client went away; the query is cancelled with the transaction
+            throw e.getCause();
+        }
+
+        rows.finish();
+        writer.flush();
+        logger.info("Exported {} trades from {} to {} as {} in {} ms",
+                count[0], from, to, format, System.currentTimeMillis() - started);
+        return count[0];
+    }
+
+    private interface RowWriter {
+
+        void write(ResultSet rs) throws SQLException, IOException;
+
+        void finish() throws IOException;
+    }
+
+    private static final class NdjsonRowWriter implements RowWriter {
+
+        private final JsonGenerator generator;
+
+        NdjsonRowWriter(Writer writer) throws IOException {
+            generator = JSON.createGenerator(writer);
+            generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            generator.writeStartObject();
+            for (int i = 0; i < COLUMNS.length; i++) {
+                Object value = rs.getObject(i + 1);
+                if (value == null) {
+                    continue;
+                }
+                generator.writeFieldName(COLUMNS[i]);
+                if (value instanceof BigDecimal) {
+                    generator.writeNumber((BigDecimal) value);
+                } else if (value instanceof Integer) {
+                    generator.writeNumber((Integer) value);
+                } else if (value instanceof Timestamp) {
+                    generator.writeString(((Timestamp) value).toLocalDateTime().toString());
+                } else {
+                    generator.writeString(value.toString());
+                }
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.flush();
+        }
+    }
+
+    private static final class CsvRowWriter implements RowWriter {
+
+        private final Writer writer;
+
+        CsvRowWriter(Writer writer) throws IOException {
+            this.writer = writer;
+            writer.write(String.join(",", COLUMNS));
+            writer.write('\n');
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            for (int i = 0; i < COLUMNS.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                Object value = rs.getObject(i + 1);
+                if (value instanceof BigDecimal) {
+                    writer.write(((BigDecimal) value).toPlainString());
+                } else if (value instanceof Timestamp) {
+                    writer.write(((Timestamp) value).toLocalDateTime().toString());
+                } else if (value != null) {
+                    writeText(value.toString());
+                }
+            }
+            writer.write('\n');
+        }
+
+        @Override
+        public void finish() {
+        }
+
+        private void writeText(String value) throws IOException {
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+    }
+}
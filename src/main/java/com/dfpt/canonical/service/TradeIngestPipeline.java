@@ -0,0 +1,343 @@
+package com.dfpt.canonical.service;
+
+import com.dfpt.canonical.model.CanonicalTrade;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Runs one file through three stages connected by bounded queues:
+ * parse (the calling thread) -> map/validate (worker threads) -> persist (a single
+ * thread that owns the {@link TradePersistenceSession}). Records travel in batches;
+ * each mapped batch is validated in one pass through {@link TradeValidator}.
+ * A full queue blocks the stage feeding it, so a slow database throttles parsing
+ * and the records in memory are bounded by the queue capacities.
+ * Mapped batches are applied in parse order, so results match a serial run.
+ */
+class TradeIngestPipeline<T> implements Consumer<T> {
+
+    private static final Logger logger = LoggerFactory.getLogger(TradeIngestPipeline.class);
+
+    private static final long POLL_MILLIS = 100;
+
+    private final ExecutorService executor;
+    private final int mapThreads;
+    private final int batchSize;
+    private final RecordMapper<T> mapper;
+    private final TradeValidator validator;
+    private final TradePersistenceSession persistence;
+    private final BlockingQueue<ParsedBatch<T>> parsedQueue;
+    private final BlockingQueue<MappedBatch> mappedQueue;
+    private final List<Future<?>> workers = new ArrayList<>();
+    private final CountDownLatch stopped;
+
+    private volatile Throwable failure;
+    private List<T> batch;
+    private long sequence;
+    private int ordinal;
+
+    TradeIngestPipeline(ExecutorService executor, int mapThreads, int queueCapacity, int batchSize,
+                        RecordMapper<T> mapper, TradeValidator validator, TradePersistenceSession persistence) {
+        this.executor = executor;
+        this.mapThreads = mapThreads;
+        this.batchSize = batchSize;
+        this.mapper = mapper;
+        this.validator = validator;
+        this.persistence = persistence;
+        this.parsedQueue = new ArrayBlockingQueue<>(queueCapacity);
+        this.mappedQueue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batch = new ArrayList<>(batchSize);
+        this.stopped = new CountDownLatch(mapThreads + 1);
+    }
+
+    void start() {
+        for (int i = 0; i < mapThreads; i++) {
+            workers.add(executor.submit(() -> runStage(this::mapStage)));
+        }
+        workers.add(executor.submit(() -> runStage(this::persistStage)));
+    }
+
+    /**
+     * Parse stage: called on the parsing thread for each record, in file order.
+     */
+    @Override
+    public void accept(T record) {
+        batch.add(record);
+        if (batch.size() >= batchSize) {
+            enqueueBatch();
+        }
+    }
+
+    /**
+     * Ends the parse stage, waits for the trades to be persisted and returns the
+     * number of records parsed.
+     */
+    int finish() throws Exception {
+        enqueueBatch();
+        for (int i = 0; i < mapThreads; i++) {
+            put(parsedQueue, ParsedBatch.end());
+        }
+
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+
+        if (failure != null) {
+            throw new IllegalStateException("Ingest pipeline failed: " + failure.getMessage(), failure);
+        }
+        return ordinal;
+    }
+
+    /**
+     * Stops all stages after a parse failure and waits for them to exit, so the
+     * caller can close the persistence session. Trades not yet persisted are dropped.
+     */
+    void abort() {
+        if (failure == null) {
+            failure = new IllegalStateException("aborted");
+        }
+        // Stages see the failure at their next queue poll
+        try {
+            stopped.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void enqueueBatch() {
+        if (batch.isEmpty()) {
+            return;
+        }
+        int firstOrdinal = ordinal + 1;
+        ordinal += batch.size();
+        put(parsedQueue, new ParsedBatch<>(sequence++, firstOrdinal, batch));
+        batch = new ArrayList<>(batchSize);
+    }
+
+    private void mapStage() throws InterruptedException {
+        while (true) {
+            ParsedBatch<T> parsed = take(parsedQueue);
+            if (parsed == null) {
+                return;
+            }
+            if (parsed.isEnd()) {
+                put(mappedQueue, MappedBatch.end());
+                return;
+            }
+
+            MappedBatch mapped = new MappedBatch(parsed.sequence, parsed.records.size());
+            int recordOrdinal = parsed.firstOrdinal;
+            for (T record : parsed.records) {
+                mapper.map(record, recordOrdinal++, mapped);
+            }
+            mapped.validate(validator);
+            put(mappedQueue, mapped);
+        }
+    }
+
+    /**
+     * Applies mapped batches to the persistence session in sequence order.
+     */
+    private void persistStage() throws InterruptedException {
+        Map<Long, MappedBatch> pending = new HashMap<>();
+        long next = 0;
+        int ended = 0;
+
+        while (ended < mapThreads) {
+            MappedBatch mapped = take(mappedQueue);
+            if (mapped == null) {
+                return;
+            }
+            if (mapped.isEnd()) {
+                ended++;
+                continue;
+            }
+
+            pending.put(mapped.sequence, mapped);
+            while ((mapped = pending.remove(next)) != null) {
+                mapped.replay(persistence);
+                next++;
+            }
+        }
+
+        persistence.finish();
+    }
+
+    private void runStage(Stage stage) {
+        try {
+            stage.run();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Throwable e) {
+            if (failure == null) {
+                failure = e;
+            }
+            logger.error("Ingest pipeline stage failed", e);
+        } finally {
+            stopped.countDown();
+        }
+    }
+
+    /**
+     * Blocking put that gives up once another stage has failed.
+     */
+    private <E> void put(BlockingQueue<E> queue, E item) {
+        try {
+            while (!queue.offer(item, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (failure != null) {
+                    throw new IllegalStateException("Ingest pipeline failed: " + failure.getMessage(), failure);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing trades", e);
+        }
+    }
+
+    /**
+     * Blocking take; returns null once another stage has failed.
+     */
+    private <E> E take(BlockingQueue<E> queue) throws InterruptedException {
+        while (true) {
+            E item = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            if (item != null) {
+                return item;
+            }
+            if (failure != null) {
+                return null;
+            }
+        }
+    }
+
+    @FunctionalInterface
+    interface RecordMapper<T> {
+        void map(T record, int ordinal, TradeSink sink);
+    }
+
+    @FunctionalInterface
+    private interface Stage {
+        void run() throws Exception;
+    }
+
+    private static final class ParsedBatch<T> {
+
+        private final long sequence;
+        private final int firstOrdinal;
+        private final List<T> records;
+
+        ParsedBatch(long sequence, int firstOrdinal, List<T> records) {
+            this.sequence = sequence;
+            this.firstOrdinal = firstOrdinal;
+            this.records = records;
+        }
+
+        static <T> ParsedBatch<T> end() {
+            return new ParsedBatch<>(-1, 0, null);
+        }
+
+        boolean isEnd() {
+            return records == null;
+        }
+    }
+
+    /**
+     * Mapping outcomes of one batch, kept in record order: a trade or a rejection.
+     * Mapped trades are validated together before the batch is replayed.
+     */
+    private static final class MappedBatch implements TradeSink {
+
+        private final long sequence;
+        private final List<Object> outcomes;
+        private final List<CanonicalTrade> trades;
+        private TradeViolation[] violations;
+
+        MappedBatch(long sequence, int size) {
+            this.sequence = sequence;
+            this.outcomes = size >= 0 ? new ArrayList<>(size) : null;
+            this.trades = size >= 0 ? new ArrayList<>(size) : null;
+        }
+
+        static MappedBatch end() {
+            return new MappedBatch(-1, -1);
+        }
+
+        boolean isEnd() {
+            return outcomes == null;
+        }
+
+        @Override
+        public void add(CanonicalTrade trade) {
+            outcomes.add(trade);
+            trades.add(trade);
+        }
+
+        @Override
+        public void invalid(CanonicalTrade trade, TradeViolation violation) {
+            outcomes.add(new Invalid(trade, violation));
+        }
+
+        @Override
+        public void reject(int ordinal, String error) {
+            outcomes.add(new Rejected(ordinal, error));
+        }
+
+        void validate(TradeValidator validator) {
+            violations = new TradeViolation[trades.size()];
+            validator.validateAll(trades, violations);
+        }
+
+        void replay(TradeSink sink) {
+            int tradeIndex = 0;
+            for (Object outcome : outcomes) {
+                if (outcome instanceof CanonicalTrade) {
+                    CanonicalTrade trade = (CanonicalTrade) outcome;
+                    TradeViolation violation = violations[tradeIndex++];
+                    if (violation == null) {
+                        sink.add(trade);
+                    } else {
+                        sink.invalid(trade, violation);
+                    }
+                } else if (outcome instanceof Invalid) {
+                    Invalid invalid = (Invalid) outcome;
+                    sink.invalid(invalid.trade, invalid.violation);
+                } else {
+                    Rejected rejected = (Rejected) outcome;
+                    sink.reject(rejected.ordinal, rejected.error);
+                }
+            }
+        }
+    }
+
+    private static final class Invalid {
+
+        private final CanonicalTrade trade;
+        private final TradeViolation violation;
+
+        Invalid(CanonicalTrade trade, TradeViolation violation) {
+            this.trade = trade;
+            this.violation = violation;
+        }
+    }
+
+    private static final class Rejected {
+
+        private final int ordinal;
+        private final String error;
+
+        Rejected(int ordinal, String error) {
+            this.ordinal = ordinal;
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.dfpt.canonical.service;
+
+import com.dfpt.canonical.dto.CacheStats;
+import com.dfpt.canonical.dto.TradeView;
+import com.dfpt.canonical.model.CanonicalTrade;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Read-through cache of trade views by transactionId, bounded by entry count and
+ * time to live.
+ * Keys are spread over independently locked segments, each an access-ordered
+ * map that evicts its least recently used entry when full. The ingest writers
+ * invalidate the IDs they insert (a COPY load clears the cache). Each segment
+ * counts invalidations, and a load only stores its result if no invalidation
+ * happened meanwhile, so a lookup racing an insert cannot cache a stale miss.
+ */
+@Component
+public class TradeLookupCache {
+
+    private static final int SEGMENTS = 16;
+
+    @Value("${trade.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${trade.cache.max-entries:100000}")
+    private int maxEntries;
+
+    @Value("${trade.cache.ttl:5m}")
+    private Duration ttl;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private long ttlNanos;
+
+    @PostConstruct
+    public void init() {
+        int perSegment = Math.max(1, maxEntries / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(perSegment);
+        }
+        ttlNanos = ttl.toNanos();
+    }
+
+    /**
+     * Returns the cached trades for the transaction ID, loading and caching them
+     * on a miss.
+     */
+    public List<TradeView> get(String transactionId, Function<String, List<TradeView>> loader) {
+        if (!enabled) {
+            return loader.apply(transactionId);
+        }
+        Segment segment = segmentFor(transactionId);
+        long now = System.nanoTime();
+        long epoch;
+
+        synchronized (segment) {
+            Entry entry = segment.entries.get(transactionId);
+            if (entry != null) {
+                if (now - entry.loadedAt < ttlNanos) {
+                    hits.increment();
+                    return entry.trades;
+                }
+                segment.entries.remove(transactionId);
+                expirations.increment();
+            }
+            epoch = segment.epoch;
+        }
+
+        misses.increment();
+        List<TradeView> trades = List.copyOf(loader.apply(transactionId));
+
+        synchronized (segment) {
+            if (segment.epoch == epoch) {
+                segment.entries.put(transactionId, new Entry(trades, now));
+            }
+        }
+        return trades;
+    }
+
+    /**
+     * Drops the entries of trades that have just been written.
+     */
+    public void invalidate(List<CanonicalTrade> trades) {
+        if (!enabled) {
+            return;
+        }
+        for (CanonicalTrade trade : trades) {
+            String transactionId = trade.getTransactionId();
+            if (transactionId == null) {
+                continue;
+            }
+            Segment segment = segmentFor(transactionId);
+            synchronized (segment) {
+                segment.epoch++;
+                segment.entries.remove(transactionId);
+            }
+        }
+        invalidations.add(trades.size());
+    }
+
+    public void invalidateAll() {
+        if (!enabled) {
+            return;
+        }
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.epoch++;
+                invalidations.add(segment.entries.size());
+                segment.entries.clear();
+            }
+        }
+    }
+
+    public CacheStats getStats() {
+        long size = 0;
+        if (enabled) {
+            for (Segment segment : segments) {
+                synchronized (segment) {
+                    size += segment.entries.size();
+                }
+            }
+        }
+        return new CacheStats(enabled, size, maxEntries, hits.sum(), misses.sum(), evictions.sum(),
+                expirations.sum(), invalidations.sum());
+    }
+
+    private Segment segmentFor(String transactionId) {
+        int hash = transactionId.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (SEGMENTS - 1)];
+    }
+
+    private final class Segment {
+
+        private final Map<String, Entry> entries;
+        private long epoch;
+
+        Segment(int capacity) {
+            this.entries = new LinkedHashMap<>(capacity * 4 / 3 + 1, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                    if (size() > capacity) {
+                        evictions.increment();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+    }
+
+    private static final class Entry {
+
+        private final List<TradeView> trades;
+        private final long loadedAt;
+
+        Entry(List<TradeView> trades, long loadedAt) {
+            this.trades = trades;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
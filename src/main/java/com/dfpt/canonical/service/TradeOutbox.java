@@ -0,0 +1,114 @@
+package com.dfpt.canonical.service;
+
+import com.dfpt.canonical.model.CanonicalTrade;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Writes a TRADE_CREATED event to {@code outbox_events} for every trade, in the
+ * transaction that inserts the trade, for {@link OutboxRelay} to publish.
+ * Events are derived in SQL from the rows the current transaction inserted
+ * (xmin) within the ID range of the written trades, so trades skipped by
+ * ON CONFLICT get no event and no trade is read back into the JVM. The payload
+ * has the export columns; client name, SSN and date of birth are left out.
+ */
+@Service
+public class TradeOutbox {
+
+    static final String TRADE_CREATED = "TRADE_CREATED";
+
+    private static final String APPEND_SQL =
+            "INSERT INTO outbox_events (aggregate_id, event_type, payload, created_at) "
+            + "SELECT id, '" + TRADE_CREATED + "', json_build_object('id', id, 'transactionId', transaction_id, "
+            + "'transactionType', transaction_type, 'tradeDateTime', trade_datetime, "
+            + "'originatorType', originator_type, 'firmNumber', firm_number, 'fundNumber', fund_number, "
+            + "'dollarAmount', dollar_amount, 'shareQuantity', share_quantity, "
+            + "'clientAccountNo', client_account_no, 'status', status, 'createdAt', created_at)::text, now() "
+            + "FROM canonical_trades WHERE id BETWEEN ? AND ? AND xmin = pg_current_xact_id()::xid ORDER BY id";
+
+    @Value("${trade.outbox.enabled:true}")
+    private boolean enabled;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Appends events for the given trades inserted by the current Spring-managed
+     * transaction; returns the number of events written.
+     */
+    public int append(List<CanonicalTrade> trades) {
+        if (!enabled || trades.isEmpty()) {
+            return 0;
+        }
+        IdRange range = IdRange.of(trades);
+        return jdbcTemplate.update(APPEND_SQL, range.getMin(), range.getMax());
+    }
+
+    /**
+     * Appends events for the trades in the range inserted by the open transaction
+     * of the connection (a COPY load).
+     */
+    int append(Connection connection, IdRange range) throws SQLException {
+        if (!enabled || range.min == null) {
+            return 0;
+        }
+        try (PreparedStatement ps = connection.prepareStatement(APPEND_SQL)) {
+            ps.setObject(1, range.min);
+            ps.setObject(2, range.max);
+            return ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Smallest and largest trade ID in PostgreSQL's uuid order (unsigned bytes),
+     * which differs from {@link UUID#compareTo}.
+     */
+    static final class IdRange {
+
+        private UUID min;
+        private UUID max;
+
+        static IdRange of(List<CanonicalTrade> trades) {
+            IdRange range = new IdRange();
+            for (CanonicalTrade trade : trades) {
+                range.add(trade.getId());
+            }
+            return range;
+        }
+
+        UUID getMin() {
+            return min;
+        }
+
+        UUID getMax() {
+            return max;
+        }
+
+        void add(UUID id) {
+            if (min == null || compare(id, min) < 0) {
+                min = id;
+            }
+            if (max == null || compare(id, max) > 0) {
+                max = id;
+            }
+        }
+
+        private static int compare(UUID a, UUID b) {
+            int result = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+            return result != 0 ? result
+                    : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+        }
+    }
+}
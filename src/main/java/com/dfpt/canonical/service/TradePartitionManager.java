@@ -0,0 +1,222 @@
+package com.dfpt.canonical.service;
+
+import com.dfpt.canonical.model.CanonicalTrade;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Maintains the monthly range partitions of {@code canonical_trades} (partitioned
+ * by trade_datetime, see schema.sql).
+ * Partitions from the current month up to {@code months-ahead} are created by the
+ * scheduled maintenance only, never while trades are written: attaching a
+ * partition takes an ACCESS EXCLUSIVE lock on the parent, which would wait on the
+ * ingest's own open COPY transaction or on a long export cursor. The DDL runs
+ * with a lock timeout and is retried on the next run if it cannot get the lock.
+ * Rows for a month without a partition (no trade time, a past month, or beyond
+ * the window) land in the default partition. Chunks are grouped by partition.
+ * Months older than the retention period are detached from the table, a
+ * catalog-only operation, and optionally dropped.
+ */
+@Service
+public class TradePartitionManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(TradePartitionManager.class);
+
+    private static final String TABLE = "canonical_trades";
+
+    private static final Pattern PARTITION_NAME = Pattern.compile(TABLE + "_p(\\d{4})(\\d{2})");
+
+    private static final String PARTITIONS_SQL =
+            "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid "
+            + "JOIN pg_class p ON p.oid = i.inhparent WHERE p.relname = ?";
+
+    private static final Comparator<CanonicalTrade> BY_PARTITION =
+            Comparator.comparingInt(TradePartitionManager::monthKey);
+
+    @Value("${trade.partitioning.enabled:true}")
+    private boolean enabled;
+
+    @Value("${trade.partitioning.months-ahead:3}")
+    private int monthsAhead;
+
+    @Value("${trade.partitioning.retention-months:0}")
+    private int retentionMonths;
+
+    @Value("${trade.partitioning.drop-detached:false}")
+    private boolean dropDetached;
+
+    @Value("${trade.partitioning.lock-timeout:5s}")
+    private Duration lockTimeout;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /** Month keys (year * 12 + month - 1) with an attached partition. */
+    private final Set<Integer> partitions = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            for (String name : jdbcTemplate.queryForList(PARTITIONS_SQL, String.class, TABLE)) {
+                Matcher matcher = PARTITION_NAME.matcher(name);
+                if (matcher.matches()) {
+                    partitions.add(Integer.parseInt(matcher.group(1)) * 12 + Integer.parseInt(matcher.group(2)) - 1);
+                }
+            }
+            logger.info("Found {} monthly partitions of {}", partitions.size(), TABLE);
+        } catch (DataAccessException e) {
+            enabled = false;
+            logger.error("Could not read partitions of {}; partition management disabled", TABLE, e);
+            return;
+        }
+        maintain();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the chunk grouped by partition, so each run of rows is routed to a
+     * single partition. Takes no locks; missing partitions are not created here.
+     */
+    public List<CanonicalTrade> prepare(List<CanonicalTrade> chunk) {
+        if (!enabled || chunk.isEmpty()) {
+            return chunk;
+        }
+
+        int first = monthKey(chunk.get(0));
+        boolean mixed = false;
+        for (CanonicalTrade trade : chunk) {
+            mixed |= monthKey(trade) != first;
+        }
+
+        if (!mixed) {
+            return chunk;
+        }
+        List<CanonicalTrade> grouped = new ArrayList<>(chunk);
+        grouped.sort(BY_PARTITION);
+        return grouped;
+    }
+
+    /**
+     * Creates the upcoming partitions and detaches those past retention.
+     */
+    @Scheduled(fixedDelayString = "${trade.partitioning.maintenance-interval:3600000}",
+            initialDelayString = "${trade.partitioning.maintenance-interval:3600000}")
+    public void maintain() {
+        if (!enabled) {
+            return;
+        }
+        int current = monthKey(YearMonth.now());
+        for (int key = current; key <= current + monthsAhead; key++) {
+            if (!partitions.contains(key)) {
+                createPartition(key);
+            }
+        }
+        if (retentionMonths > 0) {
+            detachBefore(YearMonth.now().minusMonths(retentionMonths));
+        }
+    }
+
+    /**
+     * Detaches (and optionally drops) every monthly partition before the given
+     * month. Returns the names of the detached partitions.
+     */
+    public synchronized List<String> detachBefore(YearMonth month) {
+        List<String> detached = new ArrayList<>();
+        if (!enabled) {
+            return detached;
+        }
+        int cutoff = monthKey(month);
+
+        for (int key : new TreeSet<>(partitions)) {
+            if (key >= cutoff) {
+                break;
+            }
+            String name = partitionName(key);
+            try {
+                executeWithLockTimeout("ALTER TABLE " + TABLE + " DETACH PARTITION " + name);
+                partitions.remove(key);
+                detached.add(name);
+                if (dropDetached) {
+                    jdbcTemplate.execute("DROP TABLE " + name);
+                }
+            } catch (DataAccessException e) {
+                logger.error("Could not detach partition {}", name, e);
+            }
+        }
+        if (!detached.isEmpty()) {
+            logger.info("{} partitions before {}: {}", dropDetached ? "Dropped" : "Detached", month, detached);
+        }
+        return detached;
+    }
+
+    private synchronized void createPartition(int key) {
+        YearMonth month = YearMonth.of(key / 12, key % 12 + 1);
+        String sql = "CREATE TABLE IF NOT EXISTS " + partitionName(key) + " PARTITION OF " + TABLE
+                + " FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')";
+        try {
+            executeWithLockTimeout(sql);
+            partitions.add(key);
+            logger.info("Created partition {}", partitionName(key));
+        } catch (DataAccessException e) {
+            // A lock timeout, or rows for this month already in the default partition
+            logger.warn("Could not create partition {}; its rows go to the default partition, retrying on the "
+                    + "next maintenance run: {}", partitionName(key), e.getMostSpecificCause().getMessage());
+        }
+    }
+
+    /**
+     * Runs partition DDL on one connection with a lock timeout, so it gives up
+     * instead of queueing every insert and query behind it.
+     */
+    private void executeWithLockTimeout(String sql) {
+        jdbcTemplate.execute((Statement statement) -> {
+            statement.execute("SET lock_timeout = " + lockTimeout.toMillis());
+            try {
+                statement.execute(sql);
+            } finally {
+                statement.execute("RESET lock_timeout");
+            }
+            return null;
+        });
+    }
+
+    static int monthKey(CanonicalTrade trade) {
+        LocalDateTime tradeDateTime = trade.getTradeDateTime();
+        return tradeDateTime == null ? Integer.MAX_VALUE
+                : tradeDateTime.getYear() * 12 + tradeDateTime.getMonthValue() - 1;
+    }
+
+    private static int monthKey(YearMonth month) {
+        return month.getYear() * 12 + month.getMonthValue() - 1;
+    }
+
+    static String partitionName(int key) {
+        return String.format("%s_p%04d%02d", TABLE, key / 12, key % 12 + 1);
+    }
+}
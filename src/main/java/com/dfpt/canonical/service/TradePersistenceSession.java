@@ -0,0 +1,264 @@
+package com.dfpt.canonical.service;
+
+import com.dfpt.canonical.dto.ProcessingResult;
+import com.dfpt.canonical.model.CanonicalTrade;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Per-file persistence state for validated trades, counts and rejects.
+ * Every reject is also streamed to the file's {@link RejectReport}, if any.
+ * Trades are collected in chunks, checked for duplicate transaction IDs through
+ * {@link TransactionIdIndex}, grouped by partition through
+ * {@link TradePartitionManager}, then written through {@link TradeBatchWriter}; when
+ * COPY mode is enabled and the file grows past the configured threshold, the
+ * remaining trades are streamed through {@link TradeCopyLoader} instead. COPY rows
+ * are uncommitted until the load finishes, so while it runs possible duplicates
+ * are confirmed on the load's own connection, which sees them.
+ * Committed trades are added to the {@link TradeRollupService} rollups; COPY rows
+ * only once the COPY has committed.
+ */
+class TradePersistenceSession implements TradeSink, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(TradePersistenceSession.class);
+
+    private final TradeBatchWriter batchWriter;
+    private final TradeCopyLoader copyLoader;
+    private final TransactionIdIndex transactionIdIndex;
+    private final TradePartitionManager partitionManager;
+    private final TradeRollupService rollups;
+    private final ProcessingResult result;
+    private final RejectReport rejectReport;
+    private final List<CanonicalTrade> chunk;
+
+    private TradeCopyLoader.CopySession copySession;
+    private TradeRollupService.Delta copyRollup;
+    private long copiedCount;
+    private boolean copyUnavailable;
+    private int acceptedCount;
+    private int successCount;
+    private int failedCount;
+    private int unstoredCount;
+    private int duplicateCount;
+
+    TradePersistenceSession(TradeBatchWriter batchWriter, TradeCopyLoader copyLoader,
+                            TransactionIdIndex transactionIdIndex, TradePartitionManager partitionManager,
+                            TradeRollupService rollups, ProcessingResult result,
+                            RejectReport rejectReport) {
+        this.batchWriter = batchWriter;
+        this.copyLoader = copyLoader;
+        this.transactionIdIndex = transactionIdIndex;
+        this.partitionManager = partitionManager;
+        this.rollups = rollups;
+        this.result = result;
+        this.rejectReport = rejectReport;
+        this.chunk = new ArrayList<>(batchWriter.getChunkSize());
+        this.copyUnavailable = !copyLoader.isEnabled();
+    }
+
+    @Override
+    public void add(CanonicalTrade trade) {
+        acceptedCount++;
+        chunk.add(trade);
+        if (chunk.size() >= batchWriter.getChunkSize()) {
+            flushChunk();
+        }
+    }
+
+    @Override
+    public void invalid(CanonicalTrade trade, TradeViolation violation) {
+        failedCount++;
+        result.addViolation(violation.getCode().name());
+        result.addError("Invalid trade: " + trade.getTransactionId() + " " + violation);
+        if (rejectReport != null) {
+            rejectReport.invalid(trade, violation);
+        }
+    }
+
+    @Override
+    public void reject(int ordinal, String error) {
+        failedCount++;
+        result.addError(error);
+        if (rejectReport != null) {
+            rejectReport.rejected(ordinal, "PROCESSING_ERROR", error);
+        }
+    }
+
+    void finish() {
+        flushChunk();
+
+        if (copySession != null) {
+            try {
+                long rows = copySession.finish();
+                successCount += rows;
+                rollups.merge(copyRollup);
+                logger.info("COPY loaded {} trades for {}", rows, result.getFileName());
+                closeCopy();
+            } catch (SQLException e) {
+                abortCopy(e);
+            }
+        }
+    }
+
+    int getSuccessCount() {
+        return successCount;
+    }
+
+    int getFailedCount() {
+        return failedCount;
+    }
+
+    int getDuplicateCount() {
+        return duplicateCount;
+    }
+
+    /**
+     * Valid trades that failed to be written (part of the failed count); unlike
+     * invalid records, a retry may store them.
+     */
+    int getUnstoredCount() {
+        return unstoredCount;
+    }
+
+    @Override
+    public void close() {
+        if (copySession != null) {
+            closeCopy();
+        }
+        if (rejectReport != null) {
+            rejectReport.close();
+        }
+    }
+
+    private void flushChunk() {
+        if (chunk.isEmpty()) {
+            return;
+        }
+
+        if (copySession == null && !copyUnavailable && acceptedCount > copyLoader.getThreshold()) {
+            openCopy();
+        }
+
+        List<CanonicalTrade> unique = null;
+        if (copySession != null) {
+            try {
+                unique = removeDuplicates(chunk, copySession::queries);
+            } catch (DataAccessException e) {
+                abortCopy(e);
+            }
+        }
+        if (unique == null) {
+            unique = removeDuplicates(chunk, null);
+        }
+        List<CanonicalTrade> fresh = partitionManager.prepare(unique);
+
+        int written = 0;
+        if (copySession != null) {
+            try {
+                for (; written < fresh.size(); written++) {
+                    CanonicalTrade trade = fresh.get(written);
+                    copySession.write(trade);
+                    copyRollup.add(trade);
+                    copiedCount++;
+                }
+            } catch (SQLException e) {
+                abortCopy(e);
+            }
+        }
+        if (written < fresh.size()) {
+            writeBatch(fresh.subList(written, fresh.size()));
+        }
+        chunk.clear();
+    }
+
+    /**
+     * Drops trades whose transaction ID is already stored; possible hits are
+     * confirmed through {@code confirmWith}, or the shared pool if null.
+     */
+    private List<CanonicalTrade> removeDuplicates(List<CanonicalTrade> trades, Supplier<JdbcTemplate> confirmWith) {
+        BitSet duplicates = confirmWith != null ? transactionIdIndex.findDuplicates(trades, confirmWith)
+                : transactionIdIndex.findDuplicates(trades);
+        if (duplicates.isEmpty()) {
+            return trades;
+        }
+
+        duplicateCount += duplicates.cardinality();
+        logger.info("Skipping {} trades with existing transaction IDs in {}",
+                duplicates.cardinality(), result.getFileName());
+
+        List<CanonicalTrade> fresh = new ArrayList<>(trades.size() - duplicates.cardinality());
+        for (int i = 0; i < trades.size(); i++) {
+            if (!duplicates.get(i)) {
+                fresh.add(trades.get(i));
+            }
+        }
+        return fresh;
+    }
+
+    private void writeBatch(List<CanonicalTrade> trades) {
+        TradeBatchWriter.ChunkResult chunkResult = batchWriter.writeChunk(trades);
+        for (CanonicalTrade saved : chunkResult.getSaved()) {
+            result.addProcessedTrade(saved);
+        }
+        rollups.record(chunkResult.getSaved());
+        for (String error : chunkResult.getErrors()) {
+            result.addError(error);
+            if (rejectReport != null) {
+                rejectReport.failed("PERSISTENCE_ERROR", error);
+            }
+        }
+
+        successCount += chunkResult.getSaved().size();
+        duplicateCount += chunkResult.getDuplicates().size();
+        int unstored = trades.size() - chunkResult.getSaved().size() - chunkResult.getDuplicates().size();
+        failedCount += unstored;
+        unstoredCount += unstored;
+    }
+
+    private void openCopy() {
+        try {
+            copySession = copyLoader.open();
+            copyRollup = rollups.newDelta();
+            logger.info("Switching {} to COPY bulk load after {} trades", result.getFileName(), acceptedCount - 1);
+        } catch (SQLException e) {
+            copyUnavailable = true;
+            logger.warn("COPY unavailable, continuing with batch inserts: {}", e.getMessage());
+        }
+    }
+
+    private void abortCopy(Exception e) {
+        // The trade whose write failed is not counted; it is retried by writeBatch
+        long lost = copiedCount;
+        failedCount += lost;
+        unstoredCount += lost;
+        String error = "COPY load failed after " + lost + " trades: " + e.getMessage();
+        result.addError(error);
+        if (rejectReport != null) {
+            // Nothing of the load was committed; its trades are not kept, so report the count
+            rejectReport.failed("COPY_ERROR", error);
+        }
+        logger.error("COPY load failed for {}", result.getFileName(), e);
+
+        closeCopy();
+        copyUnavailable = true;
+    }
+
+    private void closeCopy() {
+        try {
+            copySession.close();
+        } catch (SQLException e) {
+            logger.warn("Error closing COPY session: {}", e.getMessage());
+        }
+        copySession = null;
+        copyRollup = null;
+        copiedCount = 0;
+    }
+}
@@ -1,27 +1,21 @@
 package com.dfpt.canonical.service;
 
 import com.dfpt.canonical.dto.ExternalTradeDTO;
-import com.dfpt.canonical.dto.ExternalTradeListDTO;
 import com.dfpt.canonical.dto.ProcessingResult;
 import com.dfpt.canonical.model.CanonicalTrade;
-import com.dfpt.canonical.repository.CanonicalTradeRepository;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.dataformat.xml.XmlMapper;
-import com.opencsv.bean.CsvToBean;
-import com.opencsv.bean.CsvToBeanBuilder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
-import java.math.BigDecimal;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
-import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 @Service
 public class TradeProcessingService {
@@ -35,14 +29,88 @@ public class TradeProcessingService {
     private MapperService mapperService;
 
     @Autowired
-    private CanonicalTradeRepository tradeRepository;
+    private TradeBatchWriter tradeBatchWriter;
+
+    @Autowired
+    private TradeCopyLoader tradeCopyLoader;
+
+    @Autowired
+    private TransactionIdIndex transactionIdIndex;
+
+    @Autowired
+    private TradePartitionManager tradePartitionManager;
+
+    @Autowired
+    private TradeRollupService tradeRollupService;
+
+    @Autowired
+    private TradeValidator tradeValidator;
 
     @Autowired
     private FixedWidthParserService fixedWidthParserService;
 
+    @Autowired
+    private JsonTradeReader jsonTradeReader;
+
+    @Autowired
+    private XmlTradeReader xmlTradeReader;
+
+    @Autowired
+    private CsvTradeReader csvTradeReader;
+
+    @Autowired
+    private ParallelFileParser parallelFileParser;
+
+    @Value("${trade.ingest.fused-mapping:true}")
+    private boolean fusedMapping;
+
+    @Value("${trade.ingest.pipeline.enabled:true}")
+    private boolean pipelineEnabled;
+
+    @Value("${trade.ingest.pipeline.map-threads:2}")
+    private int mapThreads;
+
+    @Value("${trade.ingest.pipeline.queue-capacity:8}")
+    private int queueCapacity;
+
+    @Value("${trade.ingest.pipeline.batch-size:500}")
+    private int pipelineBatchSize;
+
+    @Value("${trade.result.mode:summary}")
+    private String resultMode;
+
+    @Value("${trade.result.max-errors:100}")
+    private int maxErrors;
+
+    @Value("${trade.result.reject-file.enabled:true}")
+    private boolean rejectFileEnabled;
+
+    private ExecutorService pipelineExecutor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        pipelineExecutor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "trade-ingest-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void cleanup() {
+        pipelineExecutor.shutdownNow();
+    }
+
     public ProcessingResult processTradeFile(String fileName) {
         ProcessingResult result = new ProcessingResult();
         result.setFileName(fileName);
+        if (!"full".equalsIgnoreCase(resultMode)) {
+            // Summary mode: counters and an error sample only, detail goes to the reject report
+            result.setRetainTrades(false);
+            result.setErrorLimit(maxErrors);
+        }
+        long startNanos = System.nanoTime();
         
         try {
             
@@ -50,64 +118,37 @@ public class TradeProcessingService {
             result.setFormat(format);
             
             File file = fileLoaderService.load(fileName);
-            List<ExternalTradeDTO> trades = parseFile(file, format);
-            result.setTotalRecords(trades.size());
-            
-            if (trades.isEmpty()) {
-                result.setStatus("FAILED");
-                result.addError("No records found");
-                return result;
-            }
             
+            int successCount;
+            int failedCount;
+            int unstoredCount;
             
-            int successCount = 0;
-            int failedCount = 0;
-            
-            for (int i = 0; i < trades.size(); i++) {
-                ExternalTradeDTO trade = trades.get(i);
-                try {
-                    trade.setClientAccountNo(i + 1);
-                    
-                    CanonicalTrade canonical = mapperService.mapFromJson(trade);
-                    
-                    String txnType = canonical.getTransactionType();
-                    boolean isValid = true;
-
-                    if ("B".equalsIgnoreCase(txnType)) {
-                        if (canonical.getDollarAmount() == null || 
-                            canonical.getDollarAmount().compareTo(BigDecimal.ZERO) <= 0 ||
-                            canonical.getFundNumber() == null) {
-                            isValid = false;
-                        }
-                    } else if ("S".equalsIgnoreCase(txnType)) {
-                        if (canonical.getShareQuantity() == null || 
-                            canonical.getShareQuantity().compareTo(BigDecimal.ZERO) <= 0 ||
-                            canonical.getFundNumber() == null) {
-                            isValid = false;
-                        }
-                    } else {
-                        isValid = false;
-                    }
-
-                    if (!isValid) {
-                        failedCount++;
-                        result.addError("Invalid trade: " + canonical.getTransactionId());
-                        continue;
-                    }
-                    
-                    CanonicalTrade saved = tradeRepository.save(canonical);
-                    
-                    successCount++;
-                    result.addProcessedTrade(saved);
-                    
-                } catch (Exception e) {
-                    failedCount++;
-                    result.addError("Processing error: " + e.getMessage());
-                    logger.error("Trade processing failed", e);
+            RejectReport rejectReport = rejectFileEnabled ? new RejectReport(file.toPath()) : null;
+            try (TradePersistenceSession persistence = new TradePersistenceSession(
+                     tradeBatchWriter, tradeCopyLoader, transactionIdIndex, tradePartitionManager,
+                     tradeRollupService, result, rejectReport)) {
+                
+                int totalRecords = fusedMapping
+                        ? ingest(file, format, this::parseCanonical, this::processTrade, persistence)
+                        : ingest(file, format, this::parseFile, this::processRecord, persistence);
+                result.setTotalRecords(totalRecords);
+                
+                if (totalRecords == 0) {
+                    result.setStatus("FAILED");
+                    result.addError("No records found");
+                    return result;
+                }
+                
+                successCount = persistence.getSuccessCount();
+                failedCount = persistence.getFailedCount();
+                unstoredCount = persistence.getUnstoredCount();
+                result.setDuplicateCount(persistence.getDuplicateCount());
+            } finally {
+                if (rejectReport != null && rejectReport.getPath() != null) {
+                    result.setRejectFile(rejectReport.getPath().toString());
                 }
             }
             
-            
             result.setSuccessCount(successCount);
             result.setFailedCount(failedCount);
             
@@ -115,122 +156,140 @@ public class TradeProcessingService {
                 result.setStatus("SUCCESS");
             } else if (successCount > 0) {
                 result.setStatus("PARTIAL_SUCCESS");
+            } else if (unstoredCount > 0) {
+                // Nothing stored because writes failed; worth retrying, unlike a file of invalid records
+                result.setStatus("ERROR");
             } else {
                 result.setStatus("FAILED");
             }
             
+            result.setProcessingMillis((System.nanoTime() - startNanos) / 1_000_000);
             logger.info("Processing completed: {}", result);
             
         } catch (Exception e) {
             result.setStatus("ERROR");
             result.addError("File processing error: " + e.getMessage());
+            result.setProcessingMillis((System.nanoTime() - startNanos) / 1_000_000);
             logger.error("Error processing file: {}", fileName, e);
         }
         
         return result;
     }
     
-    private List<ExternalTradeDTO> parseFile(File file, String format) throws Exception {
-        List<ExternalTradeDTO> trades = new ArrayList<>();
+    /**
+     * Parses the file and feeds each record through mapping and validation into the
+     * persistence session, either serially or through the staged ingest pipeline.
+     * Returns the number of records parsed.
+     */
+    private <T> int ingest(File file, String format, FileParser<T> parser,
+                           TradeIngestPipeline.RecordMapper<T> mapper,
+                           TradePersistenceSession persistence) throws Exception {
+        if (!pipelineEnabled) {
+            AtomicInteger ordinal = new AtomicInteger();
+            TradeSink sink = new ValidatingTradeSink(tradeValidator, persistence);
+            parser.parse(file, format, record -> mapper.map(record, ordinal.incrementAndGet(), sink));
+            persistence.finish();
+            return ordinal.get();
+        }
+        
+        TradeIngestPipeline<T> pipeline = new TradeIngestPipeline<>(
+                pipelineExecutor, mapThreads, queueCapacity, pipelineBatchSize, mapper, tradeValidator, persistence);
+        pipeline.start();
+        try {
+            parser.parse(file, format, pipeline);
+        } catch (Exception e) {
+            pipeline.abort();
+            throw e;
+        }
+        return pipeline.finish();
+    }
+    
+    private void processRecord(ExternalTradeDTO trade, int ordinal, TradeSink sink) {
+        try {
+            trade.setClientAccountNo(ordinal);
+            
+            CanonicalTrade canonical = mapperService.mapFromJson(trade);
+            
+            sink.add(canonical);
+            
+        } catch (Exception e) {
+            sink.reject(ordinal, "Processing error: " + e.getMessage());
+            logger.error("Trade processing failed", e);
+        }
+    }
+    
+    /**
+     * Fused path: the reader has already bound and converted the fields
+     */
+    private void processTrade(CanonicalTrade canonical, int ordinal, TradeSink sink) {
+        try {
+            canonical.setClientAccountNo(ordinal);
+            mapperService.applyMetadata(canonical);
+            
+            sink.add(canonical);
+            
+        } catch (Exception e) {
+            sink.reject(ordinal, "Processing error: " + e.getMessage());
+            logger.error("Trade processing failed", e);
+        }
+    }
+    
+    private void parseFile(File file, String format, Consumer<ExternalTradeDTO> sink) throws Exception {
+        if (parallelFileParser.supports(file, format)) {
+            parallelFileParser.parse(file, format, sink);
+            return;
+        }
         
         switch (format.toLowerCase()) {
             case "json":
-                trades = parseJsonFile(file);
+                jsonTradeReader.read(file, sink);
                 break;
 
             case "xml":
-                trades = parseXmlFile(file);
+                xmlTradeReader.read(file, sink);
                 break;
 
             case "csv":
-                trades = parseCsvFile(file);
+                csvTradeReader.read(file, sink);
                 break;
                 
             case "txt":
-                trades = fixedWidthParserService.parseFixedWidthFile(file);
+                fixedWidthParserService.parseFixedWidthFile(file, sink);
                 break;
 
             default:
                 throw new IllegalArgumentException("Unsupported format: " + format);
         }
-        
-        return trades;
     }
     
-    private List<ExternalTradeDTO> parseJsonFile(File file) throws Exception {
-        ObjectMapper mapper = new ObjectMapper();
-        mapper.findAndRegisterModules();
-
-        if (file.length() == 0) {
-            return Collections.emptyList();
+    private void parseCanonical(File file, String format, Consumer<CanonicalTrade> sink) throws Exception {
+        if (parallelFileParser.supports(file, format)) {
+            parallelFileParser.parseCanonical(file, format, sink);
+            return;
         }
+        
+        switch (format.toLowerCase()) {
+            case "json":
+                jsonTradeReader.readCanonical(file, sink);
+                break;
 
-        try {
-            ExternalTradeDTO[] array = mapper.readValue(file, ExternalTradeDTO[].class);
-            return Arrays.asList(array);
-        } catch (Exception arrayException) {
-            try {
-                ExternalTradeListDTO wrapped = mapper.readValue(file, ExternalTradeListDTO.class);
-                if (wrapped != null && wrapped.getOrders() != null && !wrapped.getOrders().isEmpty()) {
-                    return wrapped.getOrders();
-                }
-            } catch (Exception wrappedException) {
-            }
-            
-            try {
-                ExternalTradeDTO single = mapper.readValue(file, ExternalTradeDTO.class);
-                return Collections.singletonList(single);
-            } catch (Exception singleException) {
-                try (BufferedReader br = new BufferedReader(new FileReader(file))) {
-                    List<ExternalTradeDTO> list = new ArrayList<>();
-                    String line;
-
-                    while ((line = br.readLine()) != null) {
-                        line = line.trim();
-                        if (line.isEmpty()) continue;
-
-                        ExternalTradeDTO dto = mapper.readValue(line, ExternalTradeDTO.class);
-                        list.add(dto);
-                    }
-
-                    if (!list.isEmpty()) return list;
-                } catch (Exception jsonLinesEx) {
-                }
+            case "xml":
+                xmlTradeReader.readCanonical(file, sink);
+                break;
 
-                throw new Exception(
-                    "Invalid JSON format in file: " + file.getName() 
-                    + ". Expected JSON array, single object, wrapped array, or JSON lines."
-                );
-            }
-        }
-    }
-    
-    
-    private List<ExternalTradeDTO> parseXmlFile(File file) throws Exception {
-        XmlMapper mapper = new XmlMapper();
-        try {
+            case "csv":
+                csvTradeReader.readCanonical(file, sink);
+                break;
+                
+            case "txt":
+                fixedWidthParserService.parseCanonicalFile(file, sink);
+                break;
 
-            ExternalTradeListDTO listDTO = mapper.readValue(file, ExternalTradeListDTO.class);
-            return listDTO.getOrders();
-        } catch (Exception e) {
-        
-            ExternalTradeDTO single = mapper.readValue(file, ExternalTradeDTO.class);
-            return Arrays.asList(single);
-        }
-    }
-    
-    
-    private List<ExternalTradeDTO> parseCsvFile(File file) throws Exception {
-        try (FileReader reader = new FileReader(file)) {
-            CsvToBean<ExternalTradeDTO> csvToBean = new CsvToBeanBuilder<ExternalTradeDTO>(reader)
-                    .withType(ExternalTradeDTO.class)
-                    .withIgnoreLeadingWhiteSpace(true)
-                    .build();
-            return csvToBean.parse();
+            default:
+                throw new IllegalArgumentException("Unsupported format: " + format);
         }
     }
     
-    
     private String getFileFormat(String fileName) {
         int lastDot = fileName.lastIndexOf('.');
         if (lastDot > 0) {
@@ -238,5 +297,9 @@ public class TradeProcessingService {
         }
         return "unknown";
     }
+    
+    @FunctionalInterface
+    private interface FileParser<T> {
+        void parse(File file, String format, Consumer<T> sink) throws Exception;
+    }
 }
-
@@ -0,0 +1,137 @@
+package com.dfpt.canonical.service;
+
+import com.dfpt.canonical.dto.CacheStats;
+import com.dfpt.canonical.dto.TradePage;
+import com.dfpt.canonical.dto.TradeView;
+import com.dfpt.canonical.repository.CanonicalTradeRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Read path over canonical_trades. Queries return {@link TradeView} projections
+ * inside read-only transactions and page with keyset (seek) cursors: a cursor
+ * encodes the sort key of the last trade returned, so every page is an index
+ * seek no matter how deep, unlike OFFSET. Lookups by transactionId go through
+ * {@link TradeLookupCache}.
+ */
+@Service
+public class TradeQueryService {
+
+    private static final UUID MIN_ID = new UUID(0, 0);
+
+    @Value("${trade.query.default-limit:100}")
+    private int defaultLimit;
+
+    @Value("${trade.query.max-limit:1000}")
+    private int maxLimit;
+
+    @Autowired
+    private CanonicalTradeRepository tradeRepository;
+
+    @Autowired
+    private TradeLookupCache lookupCache;
+
+    /**
+     * Served from the cache when possible; only a miss opens a (read-only) transaction.
+     */
+    public List<TradeView> findByTransactionId(String transactionId) {
+        return lookupCache.get(transactionId, tradeRepository::findViewsByTransactionId);
+    }
+
+    public CacheStats getCacheStats() {
+        return lookupCache.getStats();
+    }
+
+    /**
+     * Trades with trade time in [from, to), ordered by trade time then id.
+     */
+    @Transactional(readOnly = true)
+    public TradePage findByTradeDateTime(LocalDateTime from, LocalDateTime to, String cursor, Integer limit) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+        int pageSize = pageSize(limit);
+
+        LocalDateTime afterTime = from;
+        UUID afterId = MIN_ID;
+        if (cursor != null) {
+            String[] key = decode(cursor).split("\\|", 2);
+            try {
+                afterTime = LocalDateTime.parse(key[0]);
+                afterId = UUID.fromString(key[1]);
+            } catch (DateTimeParseException | IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("Invalid cursor", e);
+            }
+        }
+
+        List<TradeView> trades = tradeRepository.findViewsByTradeDateTime(
+                from, to, afterTime, afterId, Limit.of(pageSize + 1));
+        return page(trades, pageSize, last -> encode(last.getTradeDateTime() + "|" + last.getId()));
+    }
+
+    /**
+     * Trades of a client account, ordered by id, i.e. by creation time.
+     */
+    @Transactional(readOnly = true)
+    public TradePage findByClientAccount(Integer clientAccountNo, String cursor, Integer limit) {
+        int pageSize = pageSize(limit);
+
+        UUID afterId = MIN_ID;
+        if (cursor != null) {
+            try {
+                afterId = UUID.fromString(decode(cursor));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid cursor", e);
+            }
+        }
+
+        List<TradeView> trades = tradeRepository.findViewsByClientAccountNo(
+                clientAccountNo, afterId, Limit.of(pageSize + 1));
+        return page(trades, pageSize, last -> encode(last.getId().toString()));
+    }
+
+    private int pageSize(Integer limit) {
+        if (limit == null) {
+            return defaultLimit;
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("'limit' must be positive");
+        }
+        return Math.min(limit, maxLimit);
+    }
+
+    /**
+     * Trims the extra row fetched to detect a following page and derives its cursor.
+     */
+    private static TradePage page(List<TradeView> trades, int pageSize,
+                                  Function<TradeView, String> cursorOf) {
+        if (trades.size() <= pageSize) {
+            return new TradePage(trades, null);
+        }
+        List<TradeView> pageTrades = trades.subList(0, pageSize);
+        return new TradePage(pageTrades, cursorOf.apply(pageTrades.get(pageSize - 1)));
+    }
+
+    private static String encode(String key) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decode(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
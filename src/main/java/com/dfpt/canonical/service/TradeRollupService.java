@@ -0,0 +1,491 @@
+package com.dfpt.canonical.service;
+
+import com.dfpt.canonical.dto.TradeRollup;
+import com.dfpt.canonical.model.CanonicalTrade;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Per day, firm, fund and transaction type rollups of stored trades: trade
+ * count, dollar amount and share quantity.
+ * Ingest adds every committed trade to a striped in-memory cell (LongAdders, so
+ * writer threads never block each other). Cells are kept per trade date in a
+ * sorted map and marked dirty when they change. A scheduled flush drains only the
+ * dirty cells and upserts the deltas into {@code trade_rollups} in one batch, then
+ * evicts the days older than {@code cell-retention}. Reads combine the table with
+ * the not yet flushed cells of the requested dates, so they cost O(groups in
+ * range), not O(trades).
+ * Amounts are summed as exact longs at the column scale (cents, whole shares).
+ * In the table a missing firm or fund is stored as -1, a missing type as '' and
+ * a missing trade time as 0001-01-01.
+ * Deltas not yet flushed are lost if the process dies. A clean shutdown flushes
+ * and stamps {@code trade_rollups_state}; the stamp is cleared while running. At
+ * startup (before ingest begins) the persisted table is used as is when the
+ * stamp is present, and rebuilt from {@code canonical_trades} when it is missing
+ * or the table is empty. {@link #rebuild()} also runs on demand.
+ */
+@Service
+public class TradeRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TradeRollupService.class);
+
+    private static final int MISSING_NUMBER = -1;
+    private static final String MISSING_TYPE = "";
+    private static final LocalDate MISSING_DATE = LocalDate.of(1, 1, 1);
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO trade_rollups (trade_date, firm_number, fund_number, transaction_type, trade_count, "
+            + "dollar_amount, share_quantity, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, now()) "
+            + "ON CONFLICT (trade_date, firm_number, fund_number, transaction_type) DO UPDATE SET "
+            + "trade_count = trade_rollups.trade_count + EXCLUDED.trade_count, "
+            + "dollar_amount = trade_rollups.dollar_amount + EXCLUDED.dollar_amount, "
+            + "share_quantity = trade_rollups.share_quantity + EXCLUDED.share_quantity, "
+            + "updated_at = EXCLUDED.updated_at";
+
+    private static final String REBUILD_SQL =
+            "INSERT INTO trade_rollups (trade_date, firm_number, fund_number, transaction_type, trade_count, "
+            + "dollar_amount, share_quantity, updated_at) "
+            + "SELECT COALESCE(trade_datetime::date, DATE '0001-01-01'), COALESCE(firm_number, -1), "
+            + "COALESCE(fund_number, -1), COALESCE(transaction_type, ''), count(*), "
+            + "COALESCE(sum(round(dollar_amount, 2)), 0), COALESCE(sum(round(share_quantity)), 0), now() "
+            + "FROM canonical_trades GROUP BY 1, 2, 3, 4";
+
+    private static final String STAMP_SQL =
+            "INSERT INTO trade_rollups_state (id, consistent_at) VALUES (1, ?) "
+            + "ON CONFLICT (id) DO UPDATE SET consistent_at = EXCLUDED.consistent_at";
+
+    @Value("${trade.rollup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${trade.rollup.rebuild-on-startup:true}")
+    private boolean rebuildOnStartup;
+
+    @Value("${trade.rollup.cell-retention:7d}")
+    private Duration cellRetention;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /** In-memory cells by trade date. */
+    private final ConcurrentSkipListMap<LocalDate, ConcurrentHashMap<GroupKey, Cell>> days =
+            new ConcurrentSkipListMap<>();
+
+    /** Groups changed since they were last drained. */
+    private final Set<GroupKey> dirty = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Held shared by writers and queries, exclusively by flush and rebuild, so
+     * queries never see deltas that are drained but not yet committed and no
+     * write lands in a cell that is being evicted.
+     */
+    private final ReadWriteLock flushLock = new ReentrantReadWriteLock();
+
+    @PostConstruct
+    public void init() {
+        try {
+            if (enabled) {
+                String reason = staleReason();
+                if (reason == null) {
+                    logger.info("Using persisted trade rollups from the last clean shutdown");
+                } else if (rebuildOnStartup) {
+                    logger.info("Rebuilding trade rollups: {}", reason);
+                    rebuild();
+                } else {
+                    logger.warn("Trade rollups may be incomplete ({}); POST /api/rollups/rebuild recomputes them",
+                            reason);
+                }
+            }
+            // Also when disabled: trades ingested meanwhile are not in the table
+            stamp(null);
+        } catch (DataAccessException e) {
+            logger.error("Could not check or rebuild trade rollups; totals may be missing trades", e);
+        }
+    }
+
+    /**
+     * Why the persisted table cannot be trusted, or null if it can.
+     */
+    private String staleReason() {
+        List<Timestamp> stamps = jdbcTemplate.queryForList(
+                "SELECT consistent_at FROM trade_rollups_state WHERE id = 1", Timestamp.class);
+        if (stamps.isEmpty() || stamps.get(0) == null) {
+            return "the previous run did not shut down cleanly";
+        }
+        Boolean empty = jdbcTemplate.queryForObject(
+                "SELECT NOT EXISTS (SELECT 1 FROM trade_rollups) AND EXISTS (SELECT 1 FROM canonical_trades)",
+                Boolean.class);
+        return Boolean.TRUE.equals(empty) ? "trade_rollups is empty" : null;
+    }
+
+    private void stamp(Timestamp consistentAt) {
+        jdbcTemplate.update(STAMP_SQL, consistentAt);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Adds trades that have been committed. The batch is summed per group first,
+     * so the shared cells are updated once per group rather than once per trade.
+     */
+    public void record(List<CanonicalTrade> trades) {
+        if (!enabled) {
+            return;
+        }
+        Delta delta = new Delta();
+        for (CanonicalTrade trade : trades) {
+            delta.add(trade);
+        }
+        merge(delta);
+    }
+
+    /**
+     * Returns a private accumulator for trades that are not committed yet, e.g. a
+     * COPY load; {@link #merge} it once they are.
+     */
+    Delta newDelta() {
+        return new Delta();
+    }
+
+    void merge(Delta delta) {
+        if (!enabled) {
+            return;
+        }
+        flushLock.readLock().lock();
+        try {
+            for (Map.Entry<GroupKey, long[]> entry : delta.sums.entrySet()) {
+                long[] sums = entry.getValue();
+                add(entry.getKey(), sums[0], sums[1], sums[2]);
+            }
+        } finally {
+            flushLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Moves the accumulated deltas into the aggregate table and evicts days past
+     * the cell retention. Deltas that cannot be written are put back for the next
+     * flush.
+     */
+    @Scheduled(fixedDelayString = "${trade.rollup.flush-interval:10000}")
+    public void flush() {
+        if (!enabled || days.isEmpty()) {
+            return;
+        }
+
+        flushLock.writeLock().lock();
+        try {
+            List<Map.Entry<GroupKey, long[]>> deltas = new ArrayList<>();
+            for (GroupKey key : dirty) {
+                dirty.remove(key);
+                long[] delta = days.get(key.date).get(key).drain();
+                if (delta[0] != 0) {
+                    deltas.add(Map.entry(key, delta));
+                }
+            }
+            if (!deltas.isEmpty()) {
+                write(deltas);
+            }
+            evict();
+        } finally {
+            flushLock.writeLock().unlock();
+        }
+    }
+
+    private void write(List<Map.Entry<GroupKey, long[]>> deltas) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPSERT_SQL, deltas,
+                    deltas.size(), (ps, entry) -> {
+                        GroupKey key = entry.getKey();
+                        long[] delta = entry.getValue();
+                        ps.setDate(1, Date.valueOf(key.date));
+                        ps.setInt(2, key.firmNumber);
+                        ps.setInt(3, key.fundNumber);
+                        ps.setString(4, key.transactionType);
+                        ps.setLong(5, delta[0]);
+                        ps.setBigDecimal(6, BigDecimal.valueOf(delta[1], 2));
+                        ps.setBigDecimal(7, BigDecimal.valueOf(delta[2]));
+                    }));
+            logger.debug("Flushed {} trade rollup groups", deltas.size());
+        } catch (DataAccessException e) {
+            for (Map.Entry<GroupKey, long[]> entry : deltas) {
+                long[] delta = entry.getValue();
+                add(entry.getKey(), delta[0], delta[1], delta[2]);
+            }
+            logger.error("Could not flush {} trade rollup groups; retrying on next flush", deltas.size(), e);
+        }
+    }
+
+    /**
+     * Drops the cells of days before the retention horizon that have nothing left
+     * to flush; the table holds their totals. Runs under the write lock.
+     */
+    private void evict() {
+        LocalDate horizon = LocalDate.now().minusDays(cellRetention.toDays());
+        Iterator<Map.Entry<LocalDate, ConcurrentHashMap<GroupKey, Cell>>> it =
+                days.headMap(horizon).entrySet().iterator();
+        while (it.hasNext()) {
+            if (Collections.disjoint(it.next().getValue().keySet(), dirty)) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Recomputes {@code trade_rollups} from {@code canonical_trades} in one
+     * transaction and discards the unflushed deltas, which the trades already
+     * cover. Exact when no ingest is running; a batch committing during the
+     * rebuild may be counted twice or not at all. Returns the number of groups.
+     */
+    public int rebuild() {
+        if (!enabled) {
+            return 0;
+        }
+
+        flushLock.writeLock().lock();
+        try {
+            long start = System.currentTimeMillis();
+            Integer groups = transactionTemplate.execute(status -> {
+                jdbcTemplate.update("DELETE FROM trade_rollups");
+                return jdbcTemplate.update(REBUILD_SQL);
+            });
+            days.clear();
+            dirty.clear();
+            logger.info("Rebuilt {} trade rollup groups from canonical_trades in {} ms", groups,
+                    System.currentTimeMillis() - start);
+            return groups != null ? groups : 0;
+        } finally {
+            flushLock.writeLock().unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (!enabled) {
+            return;
+        }
+        flush();
+        if (!dirty.isEmpty()) {
+            logger.warn("Trade rollups not fully flushed; they are rebuilt at the next startup");
+            return;
+        }
+        try {
+            stamp(Timestamp.valueOf(LocalDateTime.now()));
+        } catch (DataAccessException e) {
+            logger.warn("Could not stamp trade rollups; they are rebuilt at the next startup: {}",
+                    e.getMostSpecificCause().getMessage());
+        }
+    }
+
+    /**
+     * Rollups for trade dates in [from, to], optionally narrowed to a firm, fund or
+     * transaction type, ordered by date, firm, fund and type.
+     */
+    public List<TradeRollup> query(LocalDate from, LocalDate to, Integer firmNumber, Integer fundNumber,
+                                   String transactionType) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+
+        StringBuilder sql = new StringBuilder("SELECT trade_date, firm_number, fund_number, transaction_type, "
+                + "trade_count, dollar_amount, share_quantity FROM trade_rollups WHERE trade_date BETWEEN ? AND ?");
+        List<Object> args = new ArrayList<>(List.of(Date.valueOf(from), Date.valueOf(to)));
+        if (firmNumber != null) {
+            sql.append(" AND firm_number = ?");
+            args.add(firmNumber);
+        }
+        if (fundNumber != null) {
+            sql.append(" AND fund_number = ?");
+            args.add(fundNumber);
+        }
+        if (transactionType != null) {
+            sql.append(" AND transaction_type = ?");
+            args.add(transactionType);
+        }
+
+        Map<GroupKey, long[]> totals = new HashMap<>();
+        flushLock.readLock().lock();
+        try {
+            jdbcTemplate.query(sql.toString(), rs -> {
+                GroupKey key = new GroupKey(rs.getDate(1).toLocalDate(), rs.getInt(2), rs.getInt(3), rs.getString(4));
+                totals.put(key, new long[] {rs.getLong(5), cents(rs.getBigDecimal(6)), shares(rs.getBigDecimal(7))});
+            }, args.toArray());
+
+            // Add what has been ingested since the last flush
+            for (Map<GroupKey, Cell> day : days.subMap(from, true, to, true).values()) {
+                for (Map.Entry<GroupKey, Cell> entry : day.entrySet()) {
+                    GroupKey key = entry.getKey();
+                    if (firmNumber != null && key.firmNumber != firmNumber
+                            || fundNumber != null && key.fundNumber != fundNumber
+                            || transactionType != null && !key.transactionType.equals(transactionType)) {
+                        continue;
+                    }
+                    long[] pending = entry.getValue().peek();
+                    if (pending[0] != 0) {
+                        long[] sums = totals.computeIfAbsent(key, k -> new long[3]);
+                        sums[0] += pending[0];
+                        sums[1] += pending[1];
+                        sums[2] += pending[2];
+                    }
+                }
+            }
+        } finally {
+            flushLock.readLock().unlock();
+        }
+
+        List<TradeRollup> rollups = new ArrayList<>(totals.size());
+        for (Map.Entry<GroupKey, long[]> entry : totals.entrySet()) {
+            GroupKey key = entry.getKey();
+            long[] sums = entry.getValue();
+            rollups.add(new TradeRollup(
+                    key.date.equals(MISSING_DATE) ? null : key.date,
+                    key.firmNumber == MISSING_NUMBER ? null : key.firmNumber,
+                    key.fundNumber == MISSING_NUMBER ? null : key.fundNumber,
+                    key.transactionType.equals(MISSING_TYPE) ? null : key.transactionType,
+                    sums[0], BigDecimal.valueOf(sums[1], 2), BigDecimal.valueOf(sums[2])));
+        }
+        rollups.sort(TradeRollup.ORDER);
+        return rollups;
+    }
+
+    /**
+     * Adds to a group's cell and marks it dirty; the mark follows the add, so a
+     * flush that misses the add still flushes the group next time.
+     */
+    private void add(GroupKey key, long tradeCount, long dollarCents, long shareQuantity) {
+        ConcurrentHashMap<GroupKey, Cell> day = days.get(key.date);
+        if (day == null) {
+            day = days.computeIfAbsent(key.date, d -> new ConcurrentHashMap<>());
+        }
+        Cell cell = day.get(key);
+        if (cell == null) {
+            cell = day.computeIfAbsent(key, k -> new Cell());
+        }
+        cell.add(tradeCount, dollarCents, shareQuantity);
+        dirty.add(key);
+    }
+
+    /**
+     * Dollar amount in cents, rounded as the NUMERIC(15,2) column stores it.
+     */
+    private static long cents(BigDecimal amount) {
+        return amount == null ? 0 : amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private static long shares(BigDecimal quantity) {
+        return quantity == null ? 0 : quantity.setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    /**
+     * Group sums collected by one thread (a batch, or a COPY load until it commits).
+     */
+    static final class Delta {
+
+        private final Map<GroupKey, long[]> sums = new HashMap<>();
+
+        void add(CanonicalTrade trade) {
+            long[] group = sums.computeIfAbsent(GroupKey.of(trade), key -> new long[3]);
+            group[0]++;
+            group[1] += cents(trade.getDollarAmount());
+            group[2] += shares(trade.getShareQuantity());
+        }
+    }
+
+    private static final class Cell {
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder cents = new LongAdder();
+        private final LongAdder shares = new LongAdder();
+
+        void add(long tradeCount, long dollarCents, long shareQuantity) {
+            count.add(tradeCount);
+            cents.add(dollarCents);
+            shares.add(shareQuantity);
+        }
+
+        /**
+         * Takes the sums accumulated so far; concurrent adds land in this or the next drain.
+         */
+        long[] drain() {
+            return new long[] {count.sumThenReset(), cents.sumThenReset(), shares.sumThenReset()};
+        }
+
+        long[] peek() {
+            return new long[] {count.sum(), cents.sum(), shares.sum()};
+        }
+    }
+
+    private static final class GroupKey {
+
+        private final LocalDate date;
+        private final int firmNumber;
+        private final int fundNumber;
+        private final String transactionType;
+        private final int hash;
+
+        GroupKey(LocalDate date, int firmNumber, int fundNumber, String transactionType) {
+            this.date = date;
+            this.firmNumber = firmNumber;
+            this.fundNumber = fundNumber;
+            this.transactionType = transactionType;
+            this.hash = Objects.hash(date, firmNumber, fundNumber, transactionType);
+        }
+
+        static GroupKey of(CanonicalTrade trade) {
+            return new GroupKey(
+                    trade.getTradeDateTime() != null ? trade.getTradeDateTime().toLocalDate() : MISSING_DATE,
+                    trade.getFirmNumber() != null ? trade.getFirmNumber() : MISSING_NUMBER,
+                    trade.getFundNumber() != null ? trade.getFundNumber() : MISSING_NUMBER,
+                    trade.getTransactionType() != null ? trade.getTransactionType() : MISSING_TYPE);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof GroupKey)) {
+                return false;
+            }
+            GroupKey other = (GroupKey) o;
+            return firmNumber == other.firmNumber && fundNumber == other.fundNumber
+                    && date.equals(other.date) && transactionType.equals(other.transactionType);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
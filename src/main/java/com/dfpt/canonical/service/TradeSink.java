@@ -0,0 +1,15 @@
+package com.dfpt.canonical.service;
+
+import com.dfpt.canonical.model.CanonicalTrade;
+
+/**
+ * Receives the outcome of mapping and validating one trade record.
+ */
+interface TradeSink {
+
+    void add(CanonicalTrade trade);
+
+    void invalid(CanonicalTrade trade, TradeViolation violation);
+
+    void reject(int ordinal, String error);
+}
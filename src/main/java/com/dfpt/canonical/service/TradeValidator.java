@@ -0,0 +1,310 @@
+package com.dfpt.canonical.service;
+
+import com.dfpt.canonical.config.TradeValidationProperties;
+import com.dfpt.canonical.config.TradeValidationProperties.Check;
+import com.dfpt.canonical.config.TradeValidationProperties.Rule;
+import com.dfpt.canonical.model.CanonicalTrade;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Validates trades against the rules of their transaction type.
+ * Rules from {@link TradeValidationProperties} are compiled at startup into a
+ * dispatch table indexed by the type character, with each field read through a
+ * generated getter, so validating a trade is an array lookup plus one call per
+ * rule. The first failing rule is reported as a shared {@link TradeViolation}.
+ */
+@Service
+public class TradeValidator {
+
+    private static final Logger logger = LoggerFactory.getLogger(TradeValidator.class);
+
+    static final Map<String, List<Rule>> DEFAULT_RULES = new LinkedHashMap<>();
+
+    static {
+        DEFAULT_RULES.put("B", List.of(
+                new Rule("dollarAmount", Check.POSITIVE),
+                new Rule("fundNumber", Check.REQUIRED)));
+        DEFAULT_RULES.put("S", List.of(
+                new Rule("shareQuantity", Check.POSITIVE),
+                new Rule("fundNumber", Check.REQUIRED)));
+    }
+
+    private static final TradeViolation UNKNOWN_TYPE =
+            new TradeViolation(TradeViolation.Code.UNKNOWN_TRANSACTION_TYPE, "transactionType");
+
+    private static final CompiledRule[] NO_RULES = new CompiledRule[0];
+
+    @Autowired
+    private TradeValidationProperties validationProperties;
+
+    /** Rules of single-character types, indexed by the ASCII character in either case. */
+    private final CompiledRule[][] byChar = new CompiledRule[128][];
+
+    /** Rules of longer or non-ASCII types, keyed by the name as declared and upper-cased. */
+    private final Map<String, CompiledRule[]> byName = new HashMap<>();
+
+    @PostConstruct
+    public void init() {
+        Map<String, List<Rule>> definitions = validationProperties.getRules().isEmpty()
+                ? DEFAULT_RULES : validationProperties.getRules();
+
+        for (Map.Entry<String, List<Rule>> entry : definitions.entrySet()) {
+            register(entry.getKey().trim(), compile(entry.getKey(), entry.getValue()));
+        }
+        logger.info("Compiled validation rules for transaction types {}", definitions.keySet());
+    }
+
+    /**
+     * Returns the first violation of the trade, or null if it is valid.
+     */
+    public TradeViolation validate(CanonicalTrade trade) {
+        CompiledRule[] rules = rulesFor(trade.getTransactionType());
+        if (rules == null) {
+            return UNKNOWN_TYPE;
+        }
+        for (CompiledRule rule : rules) {
+            TradeViolation violation = rule.check(trade);
+            if (violation != null) {
+                return violation;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Validates a batch, storing each trade's violation (or null) at the same index
+     * of {@code violations}. Returns the number of invalid trades.
+     */
+    public int validateAll(List<CanonicalTrade> trades, TradeViolation[] violations) {
+        int invalid = 0;
+        for (int i = 0, size = trades.size(); i < size; i++) {
+            TradeViolation violation = validate(trades.get(i));
+            violations[i] = violation;
+            if (violation != null) {
+                invalid++;
+            }
+        }
+        return invalid;
+    }
+
+    private CompiledRule[] rulesFor(String transactionType) {
+        if (transactionType == null) {
+            return null;
+        }
+        if (transactionType.length() == 1) {
+            char type = transactionType.charAt(0);
+            if (type < byChar.length) {
+                return byChar[type];
+            }
+        }
+        CompiledRule[] rules = byName.get(transactionType);
+        return rules != null ? rules : byName.get(transactionType.toUpperCase(Locale.ROOT));
+    }
+
+    private void register(String transactionType, CompiledRule[] rules) {
+        if (transactionType.length() == 1 && transactionType.charAt(0) < byChar.length) {
+            byChar[Character.toUpperCase(transactionType.charAt(0))] = rules;
+            byChar[Character.toLowerCase(transactionType.charAt(0))] = rules;
+            return;
+        }
+        byName.put(transactionType, rules);
+        byName.put(transactionType.toUpperCase(Locale.ROOT), rules);
+    }
+
+    private static CompiledRule[] compile(String transactionType, List<Rule> rules) {
+        if (rules == null || rules.isEmpty()) {
+            return NO_RULES;
+        }
+        CompiledRule[] compiled = new CompiledRule[rules.size()];
+        for (int i = 0; i < compiled.length; i++) {
+            compiled[i] = compile(transactionType, rules.get(i));
+        }
+        return compiled;
+    }
+
+    private static CompiledRule compile(String transactionType, Rule rule) {
+        String field = rule.getField();
+        if (field == null || field.isBlank()) {
+            throw new IllegalStateException("Validation rule without a field for transaction type '"
+                    + transactionType + "'");
+        }
+        Class<?> type = getterType(field);
+        Function<CanonicalTrade, Object> getter = getter(field, type);
+
+        switch (rule.getCheck()) {
+            case REQUIRED:
+                return new RequiredRule(getter, field);
+            case POSITIVE:
+                if (type == BigDecimal.class) {
+                    return new PositiveDecimalRule(getter, field);
+                }
+                if (type == Integer.class) {
+                    return new PositiveIntegerRule(getter, field);
+                }
+                break;
+            case NOT_BLANK:
+                if (type == String.class) {
+                    return new NotBlankRule(getter, field);
+                }
+                break;
+            case MAX_LENGTH:
+                if (type == String.class && rule.getLength() != null) {
+                    return new MaxLengthRule(getter, field, rule.getLength());
+                }
+                break;
+            default:
+                break;
+        }
+        throw new IllegalStateException("Check " + rule.getCheck() + " does not apply to " + type.getSimpleName()
+                + " field '" + field + "' for transaction type '" + transactionType + "'"
+                + (rule.getCheck() == Check.MAX_LENGTH ? " (MAX_LENGTH needs a length)" : ""));
+    }
+
+    private static Class<?> getterType(String field) {
+        try {
+            return CanonicalTrade.class.getMethod(getterName(field)).getReturnType();
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("Unknown trade field '" + field + "' in validation rules", e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Function<CanonicalTrade, Object> getter(String field, Class<?> type) {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            MethodHandle handle = lookup.findVirtual(CanonicalTrade.class, getterName(field),
+                    MethodType.methodType(type));
+            CallSite site = LambdaMetafactory.metafactory(lookup, "apply",
+                    MethodType.methodType(Function.class),
+                    MethodType.methodType(Object.class, Object.class),
+                    handle, handle.type());
+            return (Function<CanonicalTrade, Object>) site.getTarget().invokeExact();
+        } catch (Throwable e) {
+            throw new IllegalStateException("Cannot bind getter for trade field '" + field + "'", e);
+        }
+    }
+
+    private static String getterName(String field) {
+        return "get" + Character.toUpperCase(field.charAt(0)) + field.substring(1);
+    }
+
+    /**
+     * One compiled check; returns its violation or null.
+     */
+    private abstract static class CompiledRule {
+
+        final Function<CanonicalTrade, Object> getter;
+        final TradeViolation missing;
+
+        CompiledRule(Function<CanonicalTrade, Object> getter, String field) {
+            this.getter = getter;
+            this.missing = new TradeViolation(TradeViolation.Code.MISSING_VALUE, field);
+        }
+
+        abstract TradeViolation check(CanonicalTrade trade);
+    }
+
+    private static final class RequiredRule extends CompiledRule {
+
+        RequiredRule(Function<CanonicalTrade, Object> getter, String field) {
+            super(getter, field);
+        }
+
+        @Override
+        TradeViolation check(CanonicalTrade trade) {
+            return getter.apply(trade) == null ? missing : null;
+        }
+    }
+
+    private static final class PositiveDecimalRule extends CompiledRule {
+
+        private final TradeViolation notPositive;
+
+        PositiveDecimalRule(Function<CanonicalTrade, Object> getter, String field) {
+            super(getter, field);
+            this.notPositive = new TradeViolation(TradeViolation.Code.NOT_POSITIVE, field);
+        }
+
+        @Override
+        TradeViolation check(CanonicalTrade trade) {
+            BigDecimal value = (BigDecimal) getter.apply(trade);
+            if (value == null) {
+                return missing;
+            }
+            return value.signum() > 0 ? null : notPositive;
+        }
+    }
+
+    private static final class PositiveIntegerRule extends CompiledRule {
+
+        private final TradeViolation notPositive;
+
+        PositiveIntegerRule(Function<CanonicalTrade, Object> getter, String field) {
+            super(getter, field);
+            this.notPositive = new TradeViolation(TradeViolation.Code.NOT_POSITIVE, field);
+        }
+
+        @Override
+        TradeViolation check(CanonicalTrade trade) {
+            Integer value = (Integer) getter.apply(trade);
+            if (value == null) {
+                return missing;
+            }
+            return value > 0 ? null : notPositive;
+        }
+    }
+
+    private static final class NotBlankRule extends CompiledRule {
+
+        private final TradeViolation blank;
+
+        NotBlankRule(Function<CanonicalTrade, Object> getter, String field) {
+            super(getter, field);
+            this.blank = new TradeViolation(TradeViolation.Code.BLANK, field);
+        }
+
+        @Override
+        TradeViolation check(CanonicalTrade trade) {
+            String value = (String) getter.apply(trade);
+            if (value == null) {
+                return missing;
+            }
+            return value.isBlank() ? blank : null;
+        }
+    }
+
+    private static final class MaxLengthRule extends CompiledRule {
+
+        private final TradeViolation tooLong;
+        private final int length;
+
+        MaxLengthRule(Function<CanonicalTrade, Object> getter, String field, int length) {
+            super(getter, field);
+            this.tooLong = new TradeViolation(TradeViolation.Code.TOO_LONG, field);
+            this.length = length;
+        }
+
+        @Override
+        TradeViolation check(CanonicalTrade trade) {
+            String value = (String) getter.apply(trade);
+            return value != null && value.length() > length ? tooLong : null;
+        }
+    }
+}
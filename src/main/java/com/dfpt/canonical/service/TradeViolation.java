@@ -0,0 +1,38 @@
+package com.dfpt.canonical.service;
+
+/**
+ * A validation failure: which rule check failed on which trade field.
+ * Instances are created once per compiled rule and shared, so reporting a
+ * violation does not allocate.
+ */
+public final class TradeViolation {
+
+    public enum Code {
+        MISSING_VALUE,
+        NOT_POSITIVE,
+        BLANK,
+        TOO_LONG,
+        UNKNOWN_TRANSACTION_TYPE
+    }
+
+    private final Code code;
+    private final String field;
+
+    TradeViolation(Code code, String field) {
+        this.code = code;
+        this.field = field;
+    }
+
+    public Code getCode() {
+        return code;
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    @Override
+    public String toString() {
+        return code + "(" + field + ")";
+    }
+}
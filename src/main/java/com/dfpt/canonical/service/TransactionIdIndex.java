@@ -0,0 +1,161 @@
+package com.dfpt.canonical.service;
+
+import com.dfpt.canonical.model.CanonicalTrade;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Ingest-time duplicate check on transactionId.
+ * A Bloom filter holds every transaction ID already stored or claimed by this
+ * process; it is warmed from {@code canonical_trades} at startup. IDs the filter
+ * has never seen are new and cost no database round trip. Possible hits of a
+ * chunk are confirmed with one query, across all partitions. The unique index on
+ * (transaction_id, trade_datetime) and ON CONFLICT DO NOTHING in
+ * {@link TradeBatchWriter} remain the final guard, e.g. against another instance
+ * inserting the same trade concurrently.
+ */
+@Service
+public class TransactionIdIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionIdIndex.class);
+
+    private static final String CONFIRM_SQL =
+            "SELECT transaction_id FROM canonical_trades WHERE transaction_id = ANY (?)";
+
+    @Value("${trade.dedup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${trade.dedup.expected-ids:10000000}")
+    private long expectedIds;
+
+    @Value("${trade.dedup.false-positive-rate:0.001}")
+    private double falsePositiveRate;
+
+    @Value("${trade.dedup.warm-fetch-size:10000}")
+    private int warmFetchSize;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private TransactionIdFilter filter;
+    private final AtomicBoolean capacityWarned = new AtomicBoolean();
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+
+        filter = new TransactionIdFilter(expectedIds, falsePositiveRate);
+        long started = System.currentTimeMillis();
+
+        // PostgreSQL only streams with a fetch size inside a transaction
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(
+                    "SELECT transaction_id FROM canonical_trades WHERE transaction_id IS NOT NULL");
+            ps.setFetchSize(warmFetchSize);
+            return ps;
+        }, rs -> {
+            filter.put(rs.getString(1));
+        }));
+
+        logger.info("Transaction ID filter warmed with {} IDs in {} ms ({} MB, {} hashes)",
+                filter.getInsertions(), System.currentTimeMillis() - started,
+                filter.getBitCount() / 8 / 1024 / 1024, filter.getHashCount());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the positions in the chunk whose transactionId already exists, either
+     * in the database or earlier in the chunk, and claims the IDs of the others.
+     */
+    public BitSet findDuplicates(List<CanonicalTrade> chunk) {
+        return findDuplicates(chunk, () -> jdbcTemplate);
+    }
+
+    /**
+     * As {@link #findDuplicates(List)}, but possible hits are confirmed through the
+     * given template, which is only asked for when there are any. A COPY load
+     * passes one on its own connection, so the rows it has streamed but not yet
+     * committed count as existing.
+     */
+    public BitSet findDuplicates(List<CanonicalTrade> chunk, Supplier<JdbcTemplate> confirmWith) {
+        BitSet duplicates = new BitSet();
+        if (!enabled) {
+            return duplicates;
+        }
+
+        BitSet possible = null;
+        for (int i = 0; i < chunk.size(); i++) {
+            String id = chunk.get(i).getTransactionId();
+            if (id == null) {
+                continue;
+            }
+            if (filter.mightContain(id)) {
+                if (possible == null) {
+                    possible = new BitSet();
+                }
+                possible.set(i);
+            } else {
+                filter.put(id);
+            }
+        }
+
+        if (possible == null) {
+            return duplicates;
+        }
+
+        Set<String> existing = confirm(confirmWith.get(), chunk, possible);
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            String id = chunk.get(i).getTransactionId();
+            if (id == null) {
+                continue;
+            }
+            if (possible.get(i) && (existing.contains(id) || seen.contains(id))) {
+                duplicates.set(i);
+            } else {
+                seen.add(id);
+            }
+        }
+
+        if (filter.getInsertions() > expectedIds && capacityWarned.compareAndSet(false, true)) {
+            logger.warn("Transaction ID filter holds {} IDs, above the expected {}; false positives will rise",
+                    filter.getInsertions(), expectedIds);
+        }
+        return duplicates;
+    }
+
+    private Set<String> confirm(JdbcTemplate jdbc, List<CanonicalTrade> chunk, BitSet possible) {
+        Object[] ids = possible.stream().mapToObj(i -> chunk.get(i).getTransactionId()).distinct().toArray();
+        Set<String> existing = new HashSet<>();
+        jdbc.query(con -> {
+            PreparedStatement ps = con.prepareStatement(CONFIRM_SQL);
+            ps.setArray(1, con.createArrayOf("varchar", ids));
+            return ps;
+        }, rs -> {
+            existing.add(rs.getString(1));
+        });
+        return existing;
+    }
+}
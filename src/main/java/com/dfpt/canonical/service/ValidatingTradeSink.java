@@ -0,0 +1,38 @@
+package com.dfpt.canonical.service;
+
+import com.dfpt.canonical.model.CanonicalTrade;
+
+/**
+ * Validates mapped trades one at a time before handing them on; used when
+ * records are not processed in batches.
+ */
+class ValidatingTradeSink implements TradeSink {
+
+    private final TradeValidator validator;
+    private final TradeSink target;
+
+    ValidatingTradeSink(TradeValidator validator, TradeSink target) {
+        this.validator = validator;
+        this.target = target;
+    }
+
+    @Override
+    public void add(CanonicalTrade trade) {
+        TradeViolation violation = validator.validate(trade);
+        if (violation == null) {
+            target.add(trade);
+        } else {
+            target.invalid(trade, violation);
+        }
+    }
+
+    @Override
+    public void invalid(CanonicalTrade trade, TradeViolation violation) {
+        target.invalid(trade, violation);
+    }
+
+    @Override
+    public void reject(int ordinal, String error) {
+        target.reject(ordinal, error);
+    }
+}
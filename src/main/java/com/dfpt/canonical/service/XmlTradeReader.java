@@ -0,0 +1,147 @@
+package com.dfpt.canonical.service;
+
+import com.dfpt.canonical.dto.ExternalTradeDTO;
+import com.dfpt.canonical.model.CanonicalTrade;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Streams trades out of an XML file one {@code <Order>} element at a time.
+ * Accepts either an {@code <Orders>} document or a single {@code <Order>} root;
+ * memory use is bounded by the size of one order. Orders are bound to
+ * {@link ExternalTradeDTO} through Jackson, or element by element onto
+ * {@link CanonicalTrade} for the fused ingest path.
+ */
+@Service
+public class XmlTradeReader {
+
+    private static final String ORDER_ELEMENT = "Order";
+
+    private final XmlMapper mapper = new XmlMapper();
+    private final ObjectReader orderReader = mapper.readerFor(ExternalTradeDTO.class);
+    private final XMLInputFactory inputFactory = mapper.getFactory().getXMLInputFactory();
+
+    @Autowired
+    private CanonicalTradeBinder canonicalTradeBinder;
+
+    public int read(File file, Consumer<ExternalTradeDTO> sink) throws IOException {
+        return read(file, this::readOrder, sink);
+    }
+
+    public int readCanonical(File file, Consumer<CanonicalTrade> sink) throws IOException {
+        return read(file, this::readCanonicalOrder, sink);
+    }
+
+    private <T> int read(File file, OrderBinder<T> binder, Consumer<T> sink) throws IOException {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            XMLStreamReader reader = inputFactory.createXMLStreamReader(in);
+            try {
+                return readDocument(reader, binder, sink);
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Invalid XML in file: " + file.getName() + " - " + e.getMessage(), e);
+        }
+    }
+
+    private <T> int readDocument(XMLStreamReader reader, OrderBinder<T> binder, Consumer<T> sink)
+            throws XMLStreamException, IOException {
+        if (!nextStartElement(reader)) {
+            return 0;
+        }
+
+        if (ORDER_ELEMENT.equals(reader.getLocalName())) {
+            sink.accept(binder.bind(reader));
+            return 1;
+        }
+
+        int count = 0;
+        while (reader.hasNext()) {
+            int event = reader.next();
+
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                if (ORDER_ELEMENT.equals(reader.getLocalName())) {
+                    sink.accept(binder.bind(reader));
+                    count++;
+                } else {
+                    skipElement(reader);
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                break;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Binds the element the reader is positioned on; the reader is left on its end tag.
+     */
+    private ExternalTradeDTO readOrder(XMLStreamReader reader) throws IOException {
+        ExternalTradeDTO order = orderReader.readValue(mapper.getFactory().createParser(reader));
+        return order != null ? order : new ExternalTradeDTO();
+    }
+
+    /**
+     * Binds the child elements of the current order straight onto a trade; the
+     * reader is left on the order's end tag.
+     */
+    private CanonicalTrade readCanonicalOrder(XMLStreamReader reader) throws XMLStreamException, IOException {
+        CanonicalTrade trade = new CanonicalTrade();
+
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                String name = reader.getLocalName();
+                BiConsumer<CanonicalTrade, String> fieldBinder = canonicalTradeBinder.textBinder(name);
+                if (fieldBinder == null) {
+                    throw new IOException("Unrecognized element <" + name + "> in <" + ORDER_ELEMENT + ">");
+                }
+                fieldBinder.accept(trade, reader.getElementText());
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                break;
+            }
+        }
+        return trade;
+    }
+
+    private boolean nextStartElement(XMLStreamReader reader) throws XMLStreamException {
+        while (reader.hasNext()) {
+            if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface OrderBinder<T> {
+        T bind(XMLStreamReader reader) throws XMLStreamException, IOException;
+    }
+}
@@ -1,9 +1,26 @@
--- Drop existing tables
-DROP TABLE IF EXISTS canonical_trades CASCADE;
+-- Runs on every startup (spring.sql.init.mode: always). Tables are only created if missing,
+-- so trades, the ledger, the rollups and the outbox survive restarts.
+-- DO bodies are single-quoted, not dollar-quoted, so the script splitter keeps them whole.
 
+-- A canonical_trades from before monthly partitioning is a plain table, which the CREATE below
+-- would leave in place. Move it (and its index names) aside; its rows are copied further down.
+DO '
+BEGIN
+    IF (SELECT relkind FROM pg_class WHERE oid = to_regclass(''canonical_trades'')) = ''r'' THEN
+        ALTER TABLE canonical_trades RENAME TO canonical_trades_unpartitioned;
+        ALTER INDEX IF EXISTS idx_transaction_id RENAME TO idx_transaction_id_unpartitioned;
+        ALTER INDEX IF EXISTS idx_trade_datetime RENAME TO idx_trade_datetime_unpartitioned;
+        ALTER INDEX IF EXISTS idx_client_account RENAME TO idx_client_account_unpartitioned;
+        RAISE NOTICE ''canonical_trades renamed to canonical_trades_unpartitioned for partitioning'';
+    END IF;
+END';
+
+-- Range-partitioned by trade_datetime, one partition per month (canonical_trades_pYYYYMM),
+-- created and detached by TradePartitionManager. Unique indexes on a partitioned table
+-- must contain the partition key, so id and transaction_id are unique per trade time.
 CREATE TABLE IF NOT EXISTS canonical_trades
 (
-    id UUID PRIMARY KEY,
+    id UUID NOT NULL,
     status VARCHAR(20),
     created_at TIMESTAMP,
     -- Trade fields
@@ -19,8 +36,94 @@ CREATE TABLE IF NOT EXISTS canonical_trades
     ssn VARCHAR(20),
     dob DATE,
     share_quantity NUMERIC(15,0)
-);
+) PARTITION BY RANGE (trade_datetime);
+
+-- Rows without a trade time or outside the managed months
+CREATE TABLE IF NOT EXISTS canonical_trades_default PARTITION OF canonical_trades DEFAULT;
 
-CREATE INDEX IF NOT EXISTS idx_transaction_id ON canonical_trades(transaction_id);
+CREATE UNIQUE INDEX IF NOT EXISTS idx_canonical_trades_id ON canonical_trades(id, trade_datetime);
+-- Backs ingest-time dedup; inserts use ON CONFLICT (transaction_id, trade_datetime) DO NOTHING
+CREATE UNIQUE INDEX IF NOT EXISTS idx_transaction_id ON canonical_trades(transaction_id, trade_datetime);
 CREATE INDEX IF NOT EXISTS idx_trade_datetime ON canonical_trades(trade_datetime);
 CREATE INDEX IF NOT EXISTS idx_client_account ON canonical_trades(client_account_no);
+
+-- Second half of the conversion: one partition per month present, then the rows, in one
+-- transaction. Rows whose (transaction_id, trade_datetime) repeats keep the first copy.
+-- Re-runs on the next startup if it fails, since the old table is only dropped at the end.
+DO '
+DECLARE
+    first_day TIMESTAMP;
+BEGIN
+    IF to_regclass(''canonical_trades_unpartitioned'') IS NULL THEN
+        RETURN;
+    END IF;
+    FOR first_day IN SELECT DISTINCT date_trunc(''month'', trade_datetime) FROM canonical_trades_unpartitioned
+            WHERE trade_datetime IS NOT NULL LOOP
+        EXECUTE format(''CREATE TABLE IF NOT EXISTS canonical_trades_p%s PARTITION OF canonical_trades ''
+                || ''FOR VALUES FROM (%L) TO (%L)'', to_char(first_day, ''YYYYMM''), first_day,
+                first_day + interval ''1 month'');
+    END LOOP;
+    INSERT INTO canonical_trades (id, status, created_at, originator_type, firm_number, fund_number,
+            transaction_type, transaction_id, trade_datetime, dollar_amount, client_account_no, client_name,
+            ssn, dob, share_quantity)
+        SELECT id, status, created_at, originator_type, firm_number, fund_number, transaction_type,
+            transaction_id, trade_datetime, dollar_amount, client_account_no, client_name, ssn, dob,
+            share_quantity
+        FROM canonical_trades_unpartitioned ORDER BY created_at
+        ON CONFLICT DO NOTHING;
+    DROP TABLE canonical_trades_unpartitioned;
+    RAISE NOTICE ''canonical_trades converted to a partitioned table'';
+END';
+
+-- Per day/firm/fund/type totals maintained by TradeRollupService; recomputed from
+-- canonical_trades at startup only when trade_rollups_state shows they may be incomplete.
+-- Missing firm/fund are stored as -1, a missing type as '' and a missing trade time as 0001-01-01.
+CREATE TABLE IF NOT EXISTS trade_rollups
+(
+    trade_date DATE NOT NULL,
+    firm_number INTEGER NOT NULL,
+    fund_number INTEGER NOT NULL,
+    transaction_type VARCHAR(10) NOT NULL,
+    trade_count BIGINT NOT NULL,
+    dollar_amount NUMERIC(20,2) NOT NULL,
+    share_quantity NUMERIC(20,0) NOT NULL,
+    updated_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (trade_date, firm_number, fund_number, transaction_type)
+);
+
+-- One row: consistent_at is set by a clean shutdown after the final rollup flush and cleared at
+-- startup, so a missing or NULL value means trade_rollups may lack unflushed totals.
+CREATE TABLE IF NOT EXISTS trade_rollups_state
+(
+    id INTEGER PRIMARY KEY CHECK (id = 1),
+    consistent_at TIMESTAMP
+);
+
+-- Events written with each trade (TradeOutbox) and deleted once OutboxRelay has published them.
+-- Kept across restarts so no committed event is lost. claimed_until is the relay's lease on a
+-- batch being published; NULL or past means the event can be claimed.
+CREATE TABLE IF NOT EXISTS outbox_events
+(
+    id BIGSERIAL PRIMARY KEY,
+    aggregate_id UUID NOT NULL,
+    event_type VARCHAR(50) NOT NULL,
+    payload TEXT NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    claimed_until TIMESTAMP
+);
+ALTER TABLE outbox_events ADD COLUMN IF NOT EXISTS claimed_until TIMESTAMP;
+
+-- Files already ingested; kept across restarts, evicted by age
+CREATE TABLE IF NOT EXISTS processed_files
+(
+    file_name VARCHAR(255) NOT NULL,
+    content_hash CHAR(64) NOT NULL,
+    file_size BIGINT NOT NULL,
+    modified_millis BIGINT NOT NULL,
+    status VARCHAR(20),
+    processed_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (file_name, content_hash)
+);
+
+CREATE INDEX IF NOT EXISTS idx_processed_files_hash ON processed_files(content_hash);
+CREATE INDEX IF NOT EXISTS idx_processed_files_processed_at ON processed_files(processed_at);
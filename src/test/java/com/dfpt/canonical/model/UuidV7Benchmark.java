@@ -0,0 +1,121 @@
+package com.dfpt.canonical.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Insert locality and generation cost of {@link UuidV7} against random v4 UUIDs.
+ * Not a unit test and not a database measurement: inserts go into a simulated
+ * leaf level of a B-tree (300 16-byte keys per 8 KB page, PostgreSQL-style
+ * rightmost split at 90%, keys in PostgreSQL's unsigned byte order), reporting
+ * leaf fill and distinct leaf pages touched per batch. Run with
+ * {@code java -cp target/classes:target/test-classes
+ * com.dfpt.canonical.model.UuidV7Benchmark [inserts] [batch]}.
+ */
+public class UuidV7Benchmark {
+
+    private static final int KEYS_PER_PAGE = 300;
+
+    private static final Comparator<UUID> PG_ORDER = (a, b) -> {
+        int result = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return result != 0 ? result : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    };
+
+    public static void main(String[] args) throws Exception {
+        int inserts = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int batch = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+
+        System.out.println("random v4: " + simulate(UUID::randomUUID, inserts, batch));
+        System.out.println("v7:        " + simulate(UuidV7::next, inserts, batch));
+
+        for (int round = 1; round <= 3; round++) {
+            int n = 10_000_000;
+            long sink = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < n; i++) {
+                sink ^= UUID.randomUUID().getLeastSignificantBits();
+            }
+            long randomDone = System.nanoTime();
+            for (int i = 0; i < n; i++) {
+                sink ^= UuidV7.next().getLeastSignificantBits();
+            }
+            long v7Done = System.nanoTime();
+            System.out.printf("round %d: randomUUID %.0f ns/id, UuidV7 %.0f ns/id (%d)%n", round,
+                    (randomDone - start) / (double) n, (v7Done - randomDone) / (double) n, sink & 1);
+        }
+
+        checkConcurrent(8, 1_000_000);
+    }
+
+    private static String simulate(Supplier<UUID> generator, int inserts, int batch) {
+        TreeMap<UUID, List<UUID>> leaves = new TreeMap<>(PG_ORDER);
+        leaves.put(new UUID(0, 0), new ArrayList<>());
+        Set<UUID> touched = new HashSet<>();
+        long pagesTouched = 0;
+        long splits = 0;
+
+        for (int i = 0; i < inserts; i++) {
+            UUID key = generator.get();
+            Map.Entry<UUID, List<UUID>> leaf = leaves.floorEntry(key);
+            List<UUID> keys = leaf.getValue();
+            keys.add(-Collections.binarySearch(keys, key, PG_ORDER) - 1, key);
+            touched.add(leaf.getKey());
+
+            if (keys.size() > KEYS_PER_PAGE) {
+                splits++;
+                boolean rightmost = leaves.higherKey(leaf.getKey()) == null;
+                int cut = rightmost ? (int) (KEYS_PER_PAGE * 0.9) : keys.size() / 2;
+                List<UUID> right = new ArrayList<>(keys.subList(cut, keys.size()));
+                keys.subList(cut, keys.size()).clear();
+                leaves.put(right.get(0), right);
+            }
+            if ((i + 1) % batch == 0) {
+                pagesTouched += touched.size();
+                touched.clear();
+            }
+        }
+
+        long keys = leaves.values().stream().mapToLong(List::size).sum();
+        return String.format("%d leaves, %d splits, %.0f%% fill, %.1f leaf pages touched per %d-row batch",
+                leaves.size(), splits, 100.0 * keys / ((double) leaves.size() * KEYS_PER_PAGE),
+                pagesTouched / (double) (inserts / batch), batch);
+    }
+
+    private static void checkConcurrent(int threads, int perThread) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<List<UUID>>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                List<UUID> ids = new ArrayList<>(perThread);
+                for (int i = 0; i < perThread; i++) {
+                    ids.add(UuidV7.next());
+                }
+                return ids;
+            }));
+        }
+
+        Set<UUID> all = new HashSet<>();
+        boolean increasing = true;
+        for (Future<List<UUID>> future : futures) {
+            List<UUID> ids = future.get();
+            for (int i = 1; i < ids.size(); i++) {
+                increasing &= PG_ORDER.compare(ids.get(i - 1), ids.get(i)) < 0;
+            }
+            all.addAll(ids);
+        }
+        executor.shutdown();
+        System.out.printf("%d threads x %d ids: %d unique, strictly increasing per thread: %b%n",
+                threads, perThread, all.size(), increasing);
+    }
+}
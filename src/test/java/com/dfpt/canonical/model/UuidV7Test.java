@@ -0,0 +1,110 @@
+package com.dfpt.canonical.model;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Layout and ordering of {@link UuidV7}. The generator state is shared by the
+ * JVM, so tests that move it only ever move it forward.
+ */
+class UuidV7Test {
+
+    private static final int COUNTER_MAX = 0xFFF;
+
+    @Test
+    void setsVersionVariantAndCurrentTimestamp() {
+        long before = System.currentTimeMillis();
+        UUID uuid = UuidV7.next();
+
+        assertEquals(7, uuid.version());
+        assertEquals(2, uuid.variant());
+        assertTrue(UuidV7.timestamp(uuid) >= before);
+    }
+
+    @Test
+    void increasesStrictlyWithinAMillisecond() {
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            ids.add(UuidV7.next());
+        }
+
+        boolean sharedMillisecond = false;
+        for (int i = 1; i < ids.size(); i++) {
+            assertTrue(ids.get(i - 1).getMostSignificantBits() < ids.get(i).getMostSignificantBits(),
+                    ids.get(i - 1) + " then " + ids.get(i));
+            sharedMillisecond |= UuidV7.timestamp(ids.get(i - 1)) == UuidV7.timestamp(ids.get(i));
+        }
+        assertTrue(sharedMillisecond);
+    }
+
+    @Test
+    void carriesCounterOverflowIntoTheTimestamp() {
+        long millis = System.currentTimeMillis() + 60_000;
+        state().set(millis << 12 | (COUNTER_MAX - 1));
+
+        UUID last = UuidV7.next();
+        UUID carried = UuidV7.next();
+
+        assertEquals(millis, UuidV7.timestamp(last));
+        assertEquals(COUNTER_MAX, counter(last));
+        assertEquals(millis + 1, UuidV7.timestamp(carried));
+        assertEquals(0, counter(carried));
+        assertTrue(last.getMostSignificantBits() < carried.getMostSignificantBits());
+    }
+
+    @Test
+    void keepsIncreasingWhenTheClockIsBehind() {
+        long millis = System.currentTimeMillis() + 120_000;
+        state().set(millis << 12);
+
+        UUID first = UuidV7.next();
+        UUID second = UuidV7.next();
+
+        assertEquals(millis, UuidV7.timestamp(first));
+        assertEquals(millis, UuidV7.timestamp(second));
+        assertEquals(counter(first) + 1, counter(second));
+    }
+
+    @Test
+    void staysUniqueAcrossThreads() throws InterruptedException {
+        ConcurrentLinkedQueue<UUID> ids = new ConcurrentLinkedQueue<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    ids.add(UuidV7.next());
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(80_000, ids.stream().map(UUID::getMostSignificantBits).distinct().count());
+    }
+
+    @Test
+    void rejectsOtherVersions() {
+        assertThrows(IllegalArgumentException.class, () -> UuidV7.timestamp(UUID.randomUUID()));
+    }
+
+    private static AtomicLong state() {
+        return (AtomicLong) ReflectionTestUtils.getField(UuidV7.class, "STATE");
+    }
+
+    private static long counter(UUID uuid) {
+        return uuid.getMostSignificantBits() & COUNTER_MAX;
+    }
+}
@@ -0,0 +1,156 @@
+package com.dfpt.canonical.service;
+
+import com.dfpt.canonical.config.FixedWidthLayoutProperties;
+import com.dfpt.canonical.config.FixedWidthLayoutProperties.FieldType;
+import com.dfpt.canonical.dto.ExternalTradeDTO;
+import com.dfpt.canonical.model.CanonicalTrade;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Byte-level column parsing of {@link FixedWidthLayout}: signs, implied decimals,
+ * blank and malformed fields, short lines and the trailing delimiter. The
+ * character-based parser must agree with the byte parser on every line.
+ */
+class FixedWidthLayoutTest {
+
+    // firm 1-5, amount 6-15 (2 decimals), id 16-25, quantity 26-30
+    private static final List<FixedWidthLayoutProperties.Field> FIELDS = List.of(
+            new FixedWidthLayoutProperties.Field("firmNumber", 1, 5, FieldType.INTEGER, 0),
+            new FixedWidthLayoutProperties.Field("dollarAmount", 6, 15, FieldType.DECIMAL, 2),
+            new FixedWidthLayoutProperties.Field("transactionId", 16, 25, FieldType.STRING, 0),
+            new FixedWidthLayoutProperties.Field("shareQuantity", 26, 30, FieldType.DECIMAL, 0));
+
+    private final FixedWidthLayout layout = layout(25, null);
+
+    @Test
+    void parsesUnsignedFieldsWithImpliedDecimals() {
+        ExternalTradeDTO dto = parse(layout, "001230000012345TX00000001   42");
+
+        assertEquals(123, dto.getFirmNumber());
+        assertEquals(new BigDecimal("123.45"), dto.getDollarAmount());
+        assertEquals("TX00000001", dto.getTransactionId());
+        assertEquals(new BigDecimal("42"), dto.getShareQuantity());
+    }
+
+    @Test
+    void parsesSignsInsideBlankPadding() {
+        ExternalTradeDTO dto = parse(layout, "  -12    +12345TX00000001 -007");
+
+        assertEquals(-12, dto.getFirmNumber());
+        assertEquals(new BigDecimal("123.45"), dto.getDollarAmount());
+        assertEquals(new BigDecimal("-7"), dto.getShareQuantity());
+        assertEquals(new BigDecimal("-0.05"), parse(layout, "00001        -5TX00000001    1").getDollarAmount());
+    }
+
+    @Test
+    void mapsBlankFieldsToNullZeroAndEmpty() {
+        ExternalTradeDTO dto = parse(layout, " ".repeat(30));
+
+        assertNull(dto.getFirmNumber());
+        assertEquals(BigDecimal.ZERO, dto.getDollarAmount());
+        assertEquals("", dto.getTransactionId());
+        assertEquals(BigDecimal.ZERO, dto.getShareQuantity());
+    }
+
+    @Test
+    void mapsMalformedNumbersToNullAndZero() {
+        ExternalTradeDTO dto = parse(layout, "1 2 30000012a45TX00000001    -");
+
+        assertNull(dto.getFirmNumber());
+        assertEquals(BigDecimal.ZERO, dto.getDollarAmount());
+        assertEquals(BigDecimal.ZERO, dto.getShareQuantity());
+    }
+
+    @Test
+    void rejectsValuesOutsideTheTargetRange() {
+        FixedWidthLayout wide = layout(0, null, List.of(
+                new FixedWidthLayoutProperties.Field("firmNumber", 1, 12, FieldType.INTEGER, 0),
+                new FixedWidthLayoutProperties.Field("dollarAmount", 13, 32, FieldType.DECIMAL, 2)));
+
+        ExternalTradeDTO dto = parse(wide, "  214748364812345678901234567890");
+        assertNull(dto.getFirmNumber());
+        assertEquals(BigDecimal.ZERO, dto.getDollarAmount());
+
+        dto = parse(wide, " -2147483648 -123456789012345678");
+        assertEquals(Integer.MIN_VALUE, dto.getFirmNumber());
+        assertEquals(new BigDecimal("-1234567890123456.78"), dto.getDollarAmount());
+    }
+
+    @Test
+    void treatsColumnsPastTheEndOfAShortLineAsBlank() {
+        ExternalTradeDTO dto = parse(layout, "000120000000100TX00000009");
+
+        assertNull(parse(layout, "000120000000100TX0000000"));
+        assertEquals(12, dto.getFirmNumber());
+        assertEquals("TX00000009", dto.getTransactionId());
+        assertEquals(BigDecimal.ZERO, dto.getShareQuantity());
+    }
+
+    @Test
+    void stripsTheTrailingDelimiter() {
+        FixedWidthLayout delimited = layout(30, "|");
+
+        ExternalTradeDTO dto = parse(delimited, "001230000012345TX00000001   42|");
+        assertEquals(new BigDecimal("42"), dto.getShareQuantity());
+        assertNull(parse(delimited, "001230000012345TX0000000142|"));
+    }
+
+    @Test
+    void bindsCanonicalTradesWithConvertedDates() {
+        FixedWidthLayout dated = layout(0, null, List.of(
+                new FixedWidthLayoutProperties.Field("originatorType", 1, 1, FieldType.STRING, 0),
+                new FixedWidthLayoutProperties.Field("tradeDateTime", 2, 15, FieldType.STRING, 0),
+                new FixedWidthLayoutProperties.Field("dollarAmount", 16, 20, FieldType.DECIMAL, 1)));
+        byte[] line = "I21012025143000 -105".getBytes(StandardCharsets.ISO_8859_1);
+
+        CanonicalTrade trade = dated.canonicalParser().parse(line, line.length);
+
+        assertEquals(1, trade.getOriginatorType());
+        assertEquals(LocalDateTime.of(2025, 1, 21, 14, 30), trade.getTradeDateTime());
+        assertEquals(new BigDecimal("-10.5"), trade.getDollarAmount());
+    }
+
+    /**
+     * Parses with the byte parser and checks the character parser gives the same record.
+     */
+    private static ExternalTradeDTO parse(FixedWidthLayout layout, String line) {
+        byte[] bytes = line.getBytes(StandardCharsets.ISO_8859_1);
+        ExternalTradeDTO fromBytes = layout.dtoParser().parse(bytes, bytes.length);
+        ExternalTradeDTO fromChars = layout.dtoParser().parse(line);
+
+        if (fromBytes == null) {
+            assertNull(fromChars, line);
+            return null;
+        }
+        assertEquals(fromBytes.getFirmNumber(), fromChars.getFirmNumber(), line);
+        assertEquals(fromBytes.getDollarAmount(), fromChars.getDollarAmount(), line);
+        assertEquals(fromBytes.getTransactionId(), fromChars.getTransactionId(), line);
+        assertEquals(fromBytes.getShareQuantity(), fromChars.getShareQuantity(), line);
+        return fromBytes;
+    }
+
+    private static FixedWidthLayout layout(int minLength, String trailingDelimiter) {
+        return layout(minLength, trailingDelimiter, FIELDS);
+    }
+
+    private static FixedWidthLayout layout(int minLength, String trailingDelimiter,
+                                           List<FixedWidthLayoutProperties.Field> fields) {
+        FixedWidthLayoutProperties.Layout definition =
+                new FixedWidthLayoutProperties.Layout("test", null, minLength, fields);
+        definition.setTrailingDelimiter(trailingDelimiter);
+
+        CanonicalTradeBinder binder = new CanonicalTradeBinder();
+        ReflectionTestUtils.setField(binder, "mapperService", new MapperService());
+        binder.init();
+        return FixedWidthLayout.compile(definition, binder);
+    }
+}
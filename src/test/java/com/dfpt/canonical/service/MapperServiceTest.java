@@ -0,0 +1,130 @@
+package com.dfpt.canonical.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * The hand-written ddMMyyyy and ddMMyyyyHHmmss parsers of {@link MapperService}:
+ * every accepted shape, and null for anything that is not a real date or time.
+ */
+class MapperServiceTest {
+
+    private static final DateTimeFormatter STRICT_DATE =
+            DateTimeFormatter.ofPattern("ddMMuuuu").withResolverStyle(ResolverStyle.STRICT);
+
+    private final MapperService mapper = new MapperService();
+
+    @Test
+    void parsesDates() {
+        assertEquals(LocalDate.of(2025, 1, 21), mapper.parseDate("21012025"));
+        assertEquals(LocalDate.of(1, 1, 1), mapper.parseDate("01010001"));
+        assertEquals(LocalDate.of(9999, 12, 31), mapper.parseDate("31129999"));
+    }
+
+    @Test
+    void acceptsLeapDaysOnlyInLeapYears() {
+        assertEquals(LocalDate.of(2024, 2, 29), mapper.parseDate("29022024"));
+        assertEquals(LocalDate.of(2000, 2, 29), mapper.parseDate("29022000"));
+        assertNull(mapper.parseDate("29022023"));
+        assertNull(mapper.parseDate("29021900"));
+    }
+
+    @Test
+    void rejectsDaysPastTheEndOfTheMonth() {
+        assertNull(mapper.parseDate("30022024"));
+        assertNull(mapper.parseDate("31042025"));
+        assertNull(mapper.parseDate("32012025"));
+        assertNull(mapper.parseDateTime("30022024120000"));
+    }
+
+    @Test
+    void rejectsZeroFieldsAndUnknownMonths() {
+        assertNull(mapper.parseDate("00012025"));
+        assertNull(mapper.parseDate("01002025"));
+        assertNull(mapper.parseDate("01132025"));
+        assertNull(mapper.parseDate("01010000"));
+    }
+
+    @Test
+    void rejectsMalformedText() {
+        assertNull(mapper.parseDate(null));
+        assertNull(mapper.parseDate(""));
+        assertNull(mapper.parseDate("2101202"));
+        assertNull(mapper.parseDate("210120251"));
+        assertNull(mapper.parseDate("21-01-25"));
+        assertNull(mapper.parseDate("2101202A"));
+        assertNull(mapper.parseDate(" 1012025"));
+        assertNull(mapper.parseDateTime("2101202514300"));
+        assertNull(mapper.parseDateTime("21012025 43000"));
+    }
+
+    @Test
+    void agreesWithStrictJavaTimeOnEveryDayOfTheMonthGrid() {
+        for (int year : new int[] {1900, 1999, 2000, 2023, 2024}) {
+            for (int month = 0; month <= 13; month++) {
+                for (int day = 0; day <= 32; day++) {
+                    String text = String.format("%02d%02d%04d", day, month, year);
+                    assertEquals(strict(text), mapper.parseDate(text), text);
+                }
+            }
+        }
+    }
+
+    @Test
+    void parsesDateTimes() {
+        assertEquals(LocalDateTime.of(2025, 1, 21, 14, 30), mapper.parseDateTime("21012025143000"));
+        assertEquals(LocalDateTime.of(2025, 1, 21, 0, 0), mapper.parseDateTime("21012025000000"));
+        assertEquals(LocalDateTime.of(2025, 1, 21, 23, 59, 59), mapper.parseDateTime("21012025235959"));
+    }
+
+    @Test
+    void readsEndOfDayAsMidnightOfTheNextDay() {
+        assertEquals(LocalDateTime.of(2026, 1, 1, 0, 0), mapper.parseDateTime("31122025240000"));
+        assertEquals(LocalDateTime.of(2024, 3, 1, 0, 0), mapper.parseDateTime("29022024240000"));
+        assertNull(mapper.parseDateTime("21012025240001"));
+        assertNull(mapper.parseDateTime("21012025243000"));
+    }
+
+    @Test
+    void rejectsTimesOutOfRange() {
+        assertNull(mapper.parseDateTime("21012025250000"));
+        assertNull(mapper.parseDateTime("21012025146000"));
+        assertNull(mapper.parseDateTime("21012025143060"));
+    }
+
+    @Test
+    void returnsCachedValuesForRepeatedText() {
+        LocalDateTime first = mapper.parseDateTime("21012025143000");
+
+        assertSame(first, mapper.parseDateTime("21012025143000"));
+        assertSame(mapper.parseDate("21012025"), mapper.parseDate("21012025"));
+        assertNull(mapper.parseDate("30022024"));
+        assertNull(mapper.parseDate("30022024"));
+    }
+
+    @Test
+    void convertsOriginatorType() {
+        assertEquals(1, mapper.convertOriginatorType("I"));
+        assertEquals(1, mapper.convertOriginatorType("i"));
+        assertEquals(0, mapper.convertOriginatorType("E"));
+        assertNull(mapper.convertOriginatorType(""));
+        assertNull(mapper.convertOriginatorType(null));
+    }
+
+    private static LocalDate strict(String text) {
+        try {
+            return LocalDate.parse(text, STRICT_DATE);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.dfpt.canonical.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Hits, misses and replacement in {@link ParsedValueCache}.
+ */
+class ParsedValueCacheTest {
+
+    @Test
+    void returnsStoredValuesAndMissesOthers() {
+        ParsedValueCache<Integer> cache = new ParsedValueCache<>(16);
+        cache.put("one", 1);
+        cache.put("two", 2);
+
+        assertEquals(1, cache.get("one"));
+        assertEquals(2, cache.get("two"));
+        assertNull(cache.get("three"));
+    }
+
+    @Test
+    void comparesKeysNotJustHashes() {
+        // "Aa" and "BB" share a hash code, so they always land in the same slot
+        ParsedValueCache<String> cache = new ParsedValueCache<>(16);
+        cache.put("Aa", "first");
+
+        assertNull(cache.get("BB"));
+        cache.put("BB", "second");
+        assertNull(cache.get("Aa"));
+        assertEquals("second", cache.get("BB"));
+    }
+
+    @Test
+    void holdsNoMoreEntriesThanItsCapacity() {
+        ParsedValueCache<Integer> cache = new ParsedValueCache<>(100);
+        for (int i = 0; i < 10_000; i++) {
+            cache.put("key" + i, i);
+        }
+
+        int hits = 0;
+        for (int i = 0; i < 10_000; i++) {
+            Integer value = cache.get("key" + i);
+            if (value != null) {
+                assertEquals(i, value);
+                hits++;
+            }
+        }
+        // 100 rounds up to 128 slots
+        assertTrue(hits > 0 && hits <= 128, hits + " hits");
+    }
+
+    @Test
+    void neverReturnsAnotherKeysValueUnderConcurrentUse() throws InterruptedException {
+        ParsedValueCache<String> cache = new ParsedValueCache<>(8);
+        AtomicInteger wrong = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 200_000; i++) {
+                    String key = Integer.toString(i % 64);
+                    String value = cache.get(key);
+                    if (value == null) {
+                        cache.put(key, "v" + key);
+                    } else if (!value.equals("v" + key)) {
+                        wrong.incrementAndGet();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(0, wrong.get());
+    }
+}
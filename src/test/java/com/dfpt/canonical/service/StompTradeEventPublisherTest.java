@@ -0,0 +1,228 @@
+package com.dfpt.canonical.service;
+
+import com.dfpt.canonical.model.OutboxEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Frame encoding, frame decoding and receipt bookkeeping of
+ * {@link StompTradeEventPublisher}, against a fake socket that plays back one
+ * scripted broker reply each time the publisher flushes.
+ */
+class StompTradeEventPublisherTest {
+
+    private static final String CONNECTED = "CONNECTED\nversion:1.2\n\n\0";
+    private static final UUID AGGREGATE = UUID.fromString("0190f0e4-0000-7000-8000-000000000001");
+
+    private final Deque<FakeSocket> sockets = new ArrayDeque<>();
+    private final StompTradeEventPublisher publisher = new StompTradeEventPublisher() {
+        @Override
+        Socket createSocket() {
+            return sockets.removeFirst();
+        }
+    };
+
+    StompTradeEventPublisherTest() {
+        ReflectionTestUtils.setField(publisher, "host", "broker");
+        ReflectionTestUtils.setField(publisher, "port", 61613);
+        ReflectionTestUtils.setField(publisher, "login", "user");
+        ReflectionTestUtils.setField(publisher, "passcode", "secret");
+        ReflectionTestUtils.setField(publisher, "destination", "/queue/trades:main");
+        ReflectionTestUtils.setField(publisher, "receiptTimeout", Duration.ofSeconds(1));
+    }
+
+    @Test
+    void writesConnectAndOneSendFramePerEvent() throws IOException {
+        FakeSocket socket = broker(CONNECTED, receipt("1-0") + receipt("1-1"));
+
+        publisher.publish(List.of(event(1, "{\"fund\":\"Fonds \u00e9t\u00e9\"}"), event(2, "{}")));
+
+        String[] frames = socket.written().split("\0", -1);
+        assertEquals(4, frames.length);
+        assertEquals("CONNECT\naccept-version:1.2\nhost:broker\nlogin:user\npasscode:secret\nheart-beat:0,0\n\n",
+                frames[0]);
+        assertEquals("SEND\ndestination:/queue/trades\\cmain\ncontent-type:application/json;charset=utf-8\n"
+                + "content-length:22\npersistent:true\nevent-id:1\nevent-type:TRADE_CREATED\naggregate-id:"
+                + AGGREGATE + "\nreceipt:1-0\n\n{\"fund\":\"Fonds \u00e9t\u00e9\"}", frames[1]);
+        assertTrue(frames[2].startsWith("SEND\n"));
+        assertTrue(frames[2].contains("\nevent-id:2\n"));
+        assertTrue(frames[2].endsWith("\nreceipt:1-1\n\n{}"));
+        assertEquals("", frames[3]);
+    }
+
+    @Test
+    void contentLengthCountsUtf8Bytes() throws IOException {
+        FakeSocket socket = broker(CONNECTED, receipt("1-0"));
+        String payload = "\u20ac\u20ac";
+
+        publisher.publish(List.of(event(1, payload)));
+
+        byte[] written = socket.out.toByteArray();
+        assertTrue(socket.written().contains("\ncontent-length:6\n"));
+        assertArrayEquals(new byte[] {(byte) 0xE2, (byte) 0x82, (byte) 0xAC, (byte) 0xE2, (byte) 0x82, (byte) 0xAC, 0},
+                Arrays.copyOfRange(written, written.length - 7, written.length));
+    }
+
+    @Test
+    void acceptsReceiptsOutOfOrderBetweenHeartbeats() throws IOException {
+        broker(CONNECTED, "\n" + receipt("1-2") + "\r\n\n" + receipt("1-0") + "\n" + receipt("1-1"));
+
+        publisher.publish(List.of(event(1, "{}"), event(2, "{}"), event(3, "{}")));
+    }
+
+    @Test
+    void numbersReceiptsPerBatch() throws IOException {
+        broker(CONNECTED, receipt("1-0"), receipt("2-1") + receipt("2-0"));
+
+        publisher.publish(List.of(event(1, "{}")));
+        publisher.publish(List.of(event(2, "{}"), event(3, "{}")));
+    }
+
+    @Test
+    void rejectsReceiptOfAnotherBatch() {
+        broker(CONNECTED, receipt("7-0"));
+
+        IOException e = assertThrows(IOException.class, () -> publisher.publish(List.of(event(1, "{}"))));
+        assertEquals("Unexpected RECEIPT frame from broker", e.getMessage());
+    }
+
+    @Test
+    void errorFrameFailsTheBatchAndReconnects() throws IOException {
+        FakeSocket first = broker(CONNECTED, "ERROR\nmessage:quota\\cexceeded\ncontent-length:5\n\nfull!\0");
+        FakeSocket second = broker(CONNECTED, receipt("2-0"));
+
+        IOException e = assertThrows(IOException.class, () -> publisher.publish(List.of(event(1, "{}"))));
+        assertEquals("Broker rejected message: quota:exceeded - full!", e.getMessage());
+        assertTrue(first.closed);
+
+        publisher.publish(List.of(event(1, "{}")));
+        assertTrue(second.written().startsWith("CONNECT\n"));
+    }
+
+    @Test
+    void failsWhenBrokerRefusesConnection() {
+        FakeSocket socket = broker("ERROR\nmessage:bad login\n\n\0");
+
+        IOException e = assertThrows(IOException.class, () -> publisher.publish(List.of(event(1, "{}"))));
+        assertEquals("Broker refused connection: bad login", e.getMessage());
+        assertTrue(socket.closed);
+    }
+
+    @Test
+    void failsWhenConnectionClosesBeforeAllReceipts() {
+        FakeSocket socket = broker(CONNECTED, receipt("1-0"));
+
+        assertThrows(EOFException.class, () -> publisher.publish(List.of(event(1, "{}"), event(2, "{}"))));
+        assertTrue(socket.closed);
+    }
+
+    @Test
+    void escapesAndUnescapesHeaderValues() {
+        String value = "a:b\\c\nd\re";
+        String escaped = StompTradeEventPublisher.escape(value);
+
+        assertEquals("a\\cb\\\\c\\nd\\re", escaped);
+        assertEquals(value, StompTradeEventPublisher.unescape(escaped));
+        assertEquals("plain", StompTradeEventPublisher.unescape("plain"));
+    }
+
+    private FakeSocket broker(String... replies) {
+        FakeSocket socket = new FakeSocket(replies);
+        sockets.addLast(socket);
+        return socket;
+    }
+
+    private static String receipt(String id) {
+        return "RECEIPT\nreceipt-id:" + id + "\n\n\0";
+    }
+
+    private static OutboxEvent event(long id, String payload) {
+        return new OutboxEvent(id, AGGREGATE, "TRADE_CREATED", payload);
+    }
+
+    private static final class FakeSocket extends Socket {
+
+        private final Deque<String> replies;
+        private ByteArrayInputStream reply = new ByteArrayInputStream(new byte[0]);
+        private boolean closed;
+
+        private final InputStream in = new InputStream() {
+            @Override
+            public int read() {
+                return reply.read();
+            }
+
+            @Override
+            public int available() {
+                return reply.available();
+            }
+        };
+
+        /** Each flush releases the next reply after what is still unread. */
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream() {
+            @Override
+            public void flush() {
+                if (!replies.isEmpty()) {
+                    String unread = new String(reply.readAllBytes(), StandardCharsets.UTF_8);
+                    reply = new ByteArrayInputStream((unread + replies.removeFirst()).getBytes(StandardCharsets.UTF_8));
+                }
+            }
+        };
+
+        FakeSocket(String... replies) {
+            this.replies = new ArrayDeque<>(List.of(replies));
+        }
+
+        String written() {
+            return out.toString(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void connect(SocketAddress endpoint, int timeout) {
+        }
+
+        @Override
+        public void setSoTimeout(int timeout) {
+        }
+
+        @Override
+        public void setTcpNoDelay(boolean on) {
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return in;
+        }
+
+        @Override
+        public OutputStream getOutputStream() {
+            return out;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.dfpt.canonical.service;
+
+import com.dfpt.canonical.config.TradeValidationProperties;
+import com.dfpt.canonical.dto.ProcessingResult;
+import com.dfpt.canonical.model.CanonicalTrade;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ordering and failure handling of {@link TradeIngestPipeline}. Map workers are
+ * slowed down at random so batches complete out of order; the persistence session
+ * is replaced by one that records what it receives.
+ */
+class TradeIngestPipelineTest {
+
+    private static final int MAP_THREADS = 4;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(MAP_THREADS + 1);
+    private final TradeValidator validator = new TradeValidator();
+    private final RecordingSession session = new RecordingSession();
+
+    TradeIngestPipelineTest() {
+        ReflectionTestUtils.setField(validator, "validationProperties", new TradeValidationProperties());
+        validator.init();
+    }
+
+    @AfterEach
+    void stopExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void deliversOutcomesInParseOrder() throws Exception {
+        TradeIngestPipeline<String> pipeline = pipeline(TradeIngestPipelineTest::map);
+        List<String> expected = new ArrayList<>();
+        for (int i = 1; i <= 5_000; i++) {
+            String record = i % 10 == 0 ? "reject" : i % 7 == 0 ? "X" : "B";
+            pipeline.accept(record);
+            expected.add((record.equals("reject") ? "reject " : record.equals("X") ? "invalid " : "add ") + i);
+        }
+
+        assertEquals(5_000, pipeline.finish());
+        assertEquals(expected, session.outcomes);
+        assertTrue(session.finished);
+        assertStagesStopped();
+    }
+
+    @Test
+    void finishesAnEmptyFile() throws Exception {
+        TradeIngestPipeline<String> pipeline = pipeline(TradeIngestPipelineTest::map);
+
+        assertEquals(0, pipeline.finish());
+        assertTrue(session.outcomes.isEmpty());
+        assertTrue(session.finished);
+        assertStagesStopped();
+    }
+
+    @Test
+    void propagatesAMapStageFailureAndStopsAllStages() {
+        Error failure = new OutOfMemoryError("map");
+        TradeIngestPipeline<String> pipeline = pipeline((record, ordinal, sink) -> {
+            if (ordinal == 1_234) {
+                throw failure;
+            }
+            map(record, ordinal, sink);
+        });
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> {
+            for (int i = 0; i < 100_000; i++) {
+                pipeline.accept("B");
+            }
+            pipeline.finish();
+        });
+
+        assertSame(failure, e.getCause());
+        assertFalse(session.finished);
+        assertStagesStopped();
+    }
+
+    @Test
+    void propagatesAPersistStageFailureAndStopsAllStages() {
+        RuntimeException failure = new IllegalStateException("database down");
+        session.failAt = 500;
+        session.failure = failure;
+        TradeIngestPipeline<String> pipeline = pipeline(TradeIngestPipelineTest::map);
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> {
+            for (int i = 0; i < 100_000; i++) {
+                pipeline.accept("B");
+            }
+            pipeline.finish();
+        });
+
+        assertSame(failure, e.getCause());
+        assertEquals(499, session.outcomes.size());
+        assertFalse(session.finished);
+        assertStagesStopped();
+    }
+
+    @Test
+    void abortStopsAllStagesWithoutFinishingTheSession() {
+        TradeIngestPipeline<String> pipeline = pipeline(TradeIngestPipelineTest::map);
+        for (int i = 0; i < 300; i++) {
+            pipeline.accept("B");
+        }
+
+        pipeline.abort();
+
+        assertFalse(session.finished);
+        assertStagesStopped();
+    }
+
+    private TradeIngestPipeline<String> pipeline(TradeIngestPipeline.RecordMapper<String> mapper) {
+        TradeIngestPipeline<String> pipeline =
+                new TradeIngestPipeline<>(executor, MAP_THREADS, 2, 16, mapper, validator, session);
+        pipeline.start();
+        return pipeline;
+    }
+
+    private void assertStagesStopped() {
+        executor.shutdown();
+        try {
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS), "pipeline stages still running");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * "B" maps to a valid buy, "X" to a trade of an unknown type and "reject" to a reject.
+     */
+    private static void map(String record, int ordinal, TradeSink sink) {
+        LockSupport.parkNanos(ThreadLocalRandom.current().nextInt(20_000));
+        if (record.equals("reject")) {
+            sink.reject(ordinal, "reject " + ordinal);
+            return;
+        }
+
+        CanonicalTrade trade = new CanonicalTrade();
+        trade.setTransactionType(record);
+        trade.setTransactionId(Integer.toString(ordinal));
+        trade.setFundNumber(1);
+        trade.setDollarAmount(BigDecimal.TEN);
+        sink.add(trade);
+    }
+
+    private static final class RecordingSession extends TradePersistenceSession {
+
+        private final List<String> outcomes = Collections.synchronizedList(new ArrayList<>());
+        private volatile boolean finished;
+        private int failAt = -1;
+        private RuntimeException failure;
+
+        RecordingSession() {
+            super(new TradeBatchWriter(), new TradeCopyLoader(), null, null, null, new ProcessingResult(), null);
+        }
+
+        @Override
+        public void add(CanonicalTrade trade) {
+            if (outcomes.size() + 1 == failAt) {
+                throw failure;
+            }
+            outcomes.add("add " + trade.getTransactionId());
+        }
+
+        @Override
+        public void invalid(CanonicalTrade trade, TradeViolation violation) {
+            outcomes.add("invalid " + trade.getTransactionId());
+        }
+
+        @Override
+        public void reject(int ordinal, String error) {
+            outcomes.add(error);
+        }
+
+        @Override
+        void finish() {
+            finished = true;
+        }
+    }
+}
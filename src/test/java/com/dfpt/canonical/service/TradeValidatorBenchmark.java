@@ -0,0 +1,115 @@
+package com.dfpt.canonical.service;
+
+import com.dfpt.canonical.config.TradeValidationProperties;
+import com.dfpt.canonical.model.CanonicalTrade;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * Throughput of {@link TradeValidator} with the built-in rules, compared with the
+ * inline buy/sell checks it replaced. Not a unit test; run it from the IDE or with
+ * {@code java -cp target/classes:target/test-classes:<dependencies>
+ * com.dfpt.canonical.service.TradeValidatorBenchmark [trades] [rounds]}.
+ * It first checks that both give the same verdict on a mixed set.
+ */
+public class TradeValidatorBenchmark {
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+
+        TradeValidator validator = new TradeValidator();
+        ReflectionTestUtils.setField(validator, "validationProperties", new TradeValidationProperties());
+        validator.init();
+
+        List<CanonicalTrade> mixed = mixedTrades(n);
+        List<CanonicalTrade> valid = validTrades(n);
+
+        int mismatches = 0;
+        Map<String, Integer> outcomes = new TreeMap<>();
+        for (CanonicalTrade trade : mixed) {
+            TradeViolation violation = validator.validate(trade);
+            if ((violation == null) != inlineCheck(trade)) {
+                mismatches++;
+            }
+            outcomes.merge(String.valueOf(violation), 1, Integer::sum);
+        }
+        System.out.printf("%d mixed trades, %d mismatches with the inline checks, outcomes %s%n",
+                n, mismatches, outcomes);
+
+        TradeViolation[] violations = new TradeViolation[n];
+        long sink = 0;
+        for (int round = 1; round <= rounds; round++) {
+            long start = System.nanoTime();
+            sink += validator.validateAll(valid, violations);
+            long validDone = System.nanoTime();
+            sink += validator.validateAll(mixed, violations);
+            long mixedDone = System.nanoTime();
+            for (CanonicalTrade trade : valid) {
+                sink += inlineCheck(trade) ? 1 : 0;
+            }
+            long inlineDone = System.nanoTime();
+
+            System.out.printf("round %d: engine %.1f M trades/s valid, %.1f M/s mixed | inline %.1f M/s valid%n",
+                    round, perSecond(n, start, validDone), perSecond(n, validDone, mixedDone),
+                    perSecond(n, mixedDone, inlineDone));
+        }
+        System.out.println("(" + sink + ")");
+    }
+
+    /** The checks TradeProcessingService ran before the rule engine. */
+    private static boolean inlineCheck(CanonicalTrade trade) {
+        String type = trade.getTransactionType();
+        if ("B".equalsIgnoreCase(type)) {
+            return trade.getDollarAmount() != null && trade.getDollarAmount().compareTo(BigDecimal.ZERO) > 0
+                    && trade.getFundNumber() != null;
+        }
+        if ("S".equalsIgnoreCase(type)) {
+            return trade.getShareQuantity() != null && trade.getShareQuantity().compareTo(BigDecimal.ZERO) > 0
+                    && trade.getFundNumber() != null;
+        }
+        return false;
+    }
+
+    /** Mixed-case, unknown, null and multi-character types; null, zero and negative amounts. */
+    private static List<CanonicalTrade> mixedTrades(int n) {
+        Random random = new Random(1);
+        String[] types = {"B", "S", "b", "s", "X", null, "BS", ""};
+        BigDecimal[] amounts = {null, BigDecimal.ZERO, new BigDecimal("-1"), new BigDecimal("10.5"),
+                new BigDecimal("0.01")};
+        List<CanonicalTrade> trades = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            CanonicalTrade trade = new CanonicalTrade();
+            trade.setTransactionType(types[random.nextInt(types.length)]);
+            trade.setDollarAmount(amounts[random.nextInt(amounts.length)]);
+            trade.setShareQuantity(amounts[random.nextInt(amounts.length)]);
+            trade.setFundNumber(random.nextInt(4) == 0 ? null : 7);
+            trade.setTransactionId("T" + i);
+            trades.add(trade);
+        }
+        return trades;
+    }
+
+    private static List<CanonicalTrade> validTrades(int n) {
+        List<CanonicalTrade> trades = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            CanonicalTrade trade = new CanonicalTrade();
+            trade.setTransactionType(i % 2 == 0 ? "B" : "S");
+            trade.setDollarAmount(new BigDecimal(i % 1000 + 1));
+            trade.setShareQuantity(new BigDecimal(i % 500 + 1));
+            trade.setFundNumber(i % 90);
+            trades.add(trade);
+        }
+        return trades;
+    }
+
+    private static double perSecond(int n, long startNanos, long endNanos) {
+        return n / ((endNanos - startNanos) / 1e3);
+    }
+}
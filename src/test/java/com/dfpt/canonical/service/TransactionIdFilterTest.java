@@ -0,0 +1,86 @@
+package com.dfpt.canonical.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Sizing and answers of {@link TransactionIdFilter}: an ID that was put is never
+ * reported absent, however far the filter is filled past its expected size.
+ */
+class TransactionIdFilterTest {
+
+    @Test
+    void reportsEveryInsertedId() {
+        TransactionIdFilter filter = new TransactionIdFilter(100_000, 0.001);
+        for (int i = 0; i < 100_000; i++) {
+            filter.put(id(i));
+        }
+
+        for (int i = 0; i < 100_000; i++) {
+            assertTrue(filter.mightContain(id(i)), id(i));
+        }
+        assertEquals(100_000, filter.getInsertions());
+    }
+
+    @Test
+    void keepsFalsePositivesNearTheConfiguredRate() {
+        TransactionIdFilter filter = new TransactionIdFilter(100_000, 0.01);
+        for (int i = 0; i < 100_000; i++) {
+            filter.put(id(i));
+        }
+
+        int falsePositives = 0;
+        for (int i = 100_000; i < 200_000; i++) {
+            if (filter.mightContain(id(i))) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 2_000, falsePositives + " false positives in 100000");
+    }
+
+    @Test
+    void keepsEveryIdWhenFilledPastExpectedSize() {
+        TransactionIdFilter filter = new TransactionIdFilter(1_000, 0.01);
+        for (int i = 0; i < 50_000; i++) {
+            filter.put(id(i));
+        }
+
+        for (int i = 0; i < 50_000; i++) {
+            assertTrue(filter.mightContain(id(i)), id(i));
+        }
+        assertEquals(50_000, filter.getInsertions());
+    }
+
+    @Test
+    void growsBitsWithExpectedInsertionsAndHashesWithPrecision() {
+        TransactionIdFilter small = new TransactionIdFilter(100_000, 0.01);
+        TransactionIdFilter large = new TransactionIdFilter(1_000_000, 0.01);
+        TransactionIdFilter precise = new TransactionIdFilter(100_000, 0.0001);
+
+        // About 9.6 bits and 7 hashes per ID at 1%, 19.2 bits and 13 hashes at 0.01%
+        assertEquals(958_528, small.getBitCount());
+        assertEquals(9_585_088, large.getBitCount());
+        assertEquals(7, small.getHashCount());
+        assertEquals(7, large.getHashCount());
+        assertEquals(13, precise.getHashCount());
+        assertTrue(precise.getBitCount() > 2 * small.getBitCount() - 64);
+    }
+
+    @Test
+    void treatsEmptyAndSimilarIdsAsDistinct() {
+        TransactionIdFilter filter = new TransactionIdFilter(1_000, 0.001);
+        filter.put("TX0000000001");
+
+        assertTrue(filter.mightContain("TX0000000001"));
+        assertFalse(filter.mightContain(""));
+        assertFalse(filter.mightContain("TX0000000010"));
+        assertFalse(filter.mightContain("tx0000000001"));
+    }
+
+    private static String id(int i) {
+        return String.format("TX%010d", i);
+    }
+}